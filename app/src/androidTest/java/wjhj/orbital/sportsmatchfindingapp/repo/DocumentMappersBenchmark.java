@@ -0,0 +1,165 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.util.Log;
+
+import androidx.test.platform.app.InstrumentationRegistry;
+import androidx.test.runner.AndroidJUnit4;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.FirebaseApp;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FirebaseFirestore;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.Source;
+import com.google.firebase.firestore.WriteBatch;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Compares the per-document cost of reading game documents with Firestore's reflection-based
+ * {@link DocumentSnapshot#toObject} and {@link DocumentMappers}, including parsing the date, time
+ * and duration strings. The snapshots come from the local cache of a separate Firestore instance
+ * whose network is disabled, and its pending writes are cleared afterwards, so nothing reaches
+ * the server. Results are logged under the DocumentMappers tag.
+ */
+@RunWith(AndroidJUnit4.class)
+public class DocumentMappersBenchmark {
+    private static final String TAG = "DocumentMappers";
+    private static final String APP_NAME = "documentMappersBenchmark";
+    private static final int DOCUMENTS = 10_000;
+    private static final int MAX_BATCH_WRITES = 500;
+    private static final int WARMUP_ROUNDS = 2;
+
+    @Test
+    public void compareGameMappers() throws Exception {
+        FirebaseApp app = FirebaseApp.initializeApp(
+                InstrumentationRegistry.getInstrumentation().getTargetContext(),
+                FirebaseApp.getInstance().getOptions(), APP_NAME);
+        FirebaseFirestore db = FirebaseFirestore.getInstance(app);
+        try {
+            Tasks.await(db.disableNetwork());
+            compareGameMappers(readDocuments(db.collection("Games")));
+        } finally {
+            Tasks.await(db.terminate());
+            Tasks.await(db.clearPersistence());
+            app.delete();
+        }
+    }
+
+    private void compareGameMappers(List<DocumentSnapshot> documents) {
+        for (int i = 0; i < WARMUP_ROUNDS; i++) {
+            readWithReflection(documents);
+            readWithMappers(documents);
+        }
+
+        long start = System.nanoTime();
+        long reflectionChecksum = readWithReflection(documents);
+        long reflectionNanos = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        long mapperChecksum = readWithMappers(documents);
+        long mapperNanos = System.nanoTime() - start;
+
+        Log.i(TAG, String.format("toObject: %d ns/doc, mappers: %d ns/doc over %d documents",
+                reflectionNanos / documents.size(), mapperNanos / documents.size(), documents.size()));
+        assertEquals(reflectionChecksum, mapperChecksum);
+    }
+
+    @Test
+    public void parsersMatchThreeTen() {
+        for (String date : Arrays.asList("2019-07-01", "2020-12-31")) {
+            assertEquals(LocalDate.parse(date), DocumentMappers.parseDate(date));
+        }
+        for (String time : Arrays.asList("00:00", "09:30", "23:59:59", "12:00:00.5")) {
+            assertEquals(LocalTime.parse(time), DocumentMappers.parseTime(time));
+        }
+        for (String duration : Arrays.asList("PT1H", "PT45M", "PT2H30M", "PT0S", "PT1H30M15S")) {
+            assertEquals(Duration.parse(duration), DocumentMappers.parseDuration(duration));
+        }
+    }
+
+    private static long readWithReflection(List<DocumentSnapshot> documents) {
+        long checksum = 0;
+        for (DocumentSnapshot document : documents) {
+            GameDataModel model = document.toObject(GameDataModel.class);
+            checksum += LocalDate.parse(model.getDate()).toEpochDay()
+                    + LocalTime.parse(model.getTime()).toSecondOfDay()
+                    + Duration.parse(model.getDuration()).toMinutes()
+                    + model.getParticipatingUids().size();
+        }
+        return checksum;
+    }
+
+    private static long readWithMappers(List<DocumentSnapshot> documents) {
+        long checksum = 0;
+        for (DocumentSnapshot document : documents) {
+            GameDataModel model = DocumentMappers.toGameDataModel(document);
+            checksum += DocumentMappers.parseDate(model.getDate()).toEpochDay()
+                    + DocumentMappers.parseTime(model.getTime()).toSecondOfDay()
+                    + DocumentMappers.parseDuration(model.getDuration()).toMinutes()
+                    + model.getParticipatingUids().size();
+        }
+        return checksum;
+    }
+
+    /**
+     * Writes the documents locally and reads them back from the cache once. Commits never finish
+     * without the network, so each chunk is waited for by reading its last document from the
+     * cache, which only answers after the chunk has been applied.
+     */
+    private static List<DocumentSnapshot> readDocuments(CollectionReference games) throws Exception {
+        List<Map<String, Object>> documents = createDocuments();
+        for (int i = 0; i < documents.size(); i += MAX_BATCH_WRITES) {
+            WriteBatch batch = games.getFirestore().batch();
+            String last = null;
+            for (Map<String, Object> document : documents.subList(i,
+                    Math.min(i + MAX_BATCH_WRITES, documents.size()))) {
+                last = (String) document.get("uid");
+                batch.set(games.document(last), document);
+            }
+            batch.commit();
+            Tasks.await(games.document(last).get(Source.CACHE));
+        }
+        List<DocumentSnapshot> snapshots = Tasks.await(games.get(Source.CACHE)).getDocuments();
+        assertEquals(DOCUMENTS, snapshots.size());
+        return snapshots;
+    }
+
+    private static List<Map<String, Object>> createDocuments() {
+        List<Map<String, Object>> documents = new ArrayList<>(DOCUMENTS);
+        LocalDate firstDate = LocalDate.of(2019, 7, 1);
+        for (int i = 0; i < DOCUMENTS; i++) {
+            Map<String, Object> document = new HashMap<>();
+            document.put("gameName", "Game " + i);
+            document.put("description", "Benchmark game");
+            document.put("sport", "FOOTBALL");
+            document.put("location", new GeoPoint(1.3 + i * 1e-5, 103.8));
+            document.put("placeName", "Field " + (i % 50));
+            document.put("minPlayers", 2L);
+            document.put("maxPlayers", 10L + i % 5);
+            document.put("skillLevel", "BEGINNER");
+            document.put("date", firstDate.plusDays(i % 365).toString());
+            document.put("time", LocalTime.of(i % 24, i % 60).toString());
+            document.put("duration", Duration.ofMinutes(30 + i % 150).toString());
+            document.put("uid", "game" + i);
+            document.put("creatorUid", "user" + (i % 100));
+            document.put("gameBoardChannelUrl", "channel" + i);
+            document.put("participatingUids", Arrays.asList("user" + (i % 100), "user" + (i % 7)));
+            documents.add(document);
+        }
+        return documents;
+    }
+}
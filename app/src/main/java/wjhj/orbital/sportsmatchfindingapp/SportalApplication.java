@@ -2,10 +2,17 @@ package wjhj.orbital.sportsmatchfindingapp;
 
 import android.app.Application;
 
+import com.bumptech.glide.Glide;
 import com.jakewharton.threetenabp.AndroidThreeTen;
 import com.sendbird.android.SendBird;
 
+import java.io.InputStream;
+
 import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.repo.GameMembershipMigrationWorker;
+import wjhj.orbital.sportsmatchfindingapp.repo.GameStatusWorker;
+import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
+import wjhj.orbital.sportsmatchfindingapp.utils.DisplayImageModelLoader;
 
 public class SportalApplication extends Application {
 
@@ -19,5 +26,16 @@ public class SportalApplication extends Application {
 
         SendBird.init(getString(R.string.sendbird_app_id), this);
         AndroidThreeTen.init(this);
+        SportalRepo.init(this);
+        GameStatusWorker.schedule(this);
+        GameMembershipMigrationWorker.schedule(this);
+        Glide.get(this).getRegistry().prepend(DisplayImageModelLoader.DisplayImage.class,
+                InputStream.class, new DisplayImageModelLoader.Factory());
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        super.onTrimMemory(level);
+        SportalRepo.getInstance().trimMemory(level);
     }
 }
@@ -1,5 +1,6 @@
 package wjhj.orbital.sportsmatchfindingapp.auth;
 
+import android.content.ContentResolver;
 import android.content.Context;
 import android.net.Uri;
 
@@ -8,20 +9,31 @@ import com.google.android.gms.auth.api.signin.GoogleSignInAccount;
 import com.google.android.gms.auth.api.signin.GoogleSignInClient;
 import com.google.android.gms.auth.api.signin.GoogleSignInOptions;
 import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
 import com.google.firebase.auth.AuthCredential;
 import com.google.firebase.auth.AuthResult;
 import com.google.firebase.auth.FirebaseAuth;
 import com.google.firebase.auth.FirebaseUser;
 import com.google.firebase.auth.GoogleAuthProvider;
 import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageMetadata;
 import com.google.firebase.storage.StorageReference;
 import com.google.firebase.storage.UploadTask;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
 
+import timber.log.Timber;
 import wjhj.orbital.sportsmatchfindingapp.R;
+import wjhj.orbital.sportsmatchfindingapp.utils.DisplayImageVariant;
 
 public class Authentications {
 
+    private static final Executor imageEncoder = Executors.newSingleThreadExecutor();
+
     private final FirebaseAuth firebaseAuth;
 
     public Authentications() {
@@ -52,14 +64,30 @@ public class Authentications {
         return firebaseAuth.createUserWithEmailAndPassword(signUpAuth.getEmail(), signUpAuth.getPassword());
     }
 
-    public Task<Uri> uploadDisplayImageAndGetUri(Uri displayImage, String uid) {
-        StorageReference imageReference = FirebaseStorage.getInstance()
-                .getReference()
-                .child("display-images")
-                .child(uid + ".png");
+    /**
+     * Uploads the picked picture as small, medium and large WebP variants, encoded off the main
+     * thread. Returns the download URL of the large one once every variant has been uploaded;
+     * the others are found next to it when shown. Fails if encoding or any upload fails.
+     */
+    public Task<Uri> uploadDisplayImageAndGetUri(ContentResolver resolver, Uri displayImage, String uid) {
+        StorageReference root = FirebaseStorage.getInstance().getReference();
+        StorageMetadata metadata = new StorageMetadata.Builder()
+                .setContentType(DisplayImageVariant.CONTENT_TYPE)
+                .build();
 
-        UploadTask upload = imageReference.putFile(displayImage);
-        return upload.continueWithTask(snapshot -> imageReference.getDownloadUrl());
+        return Tasks.call(imageEncoder, () -> DisplayImageEncoder.encode(resolver, displayImage))
+                .onSuccessTask(encoded -> {
+                    List<Task<UploadTask.TaskSnapshot>> uploads = new ArrayList<>();
+                    for (Map.Entry<DisplayImageVariant, byte[]> variant : encoded.entrySet()) {
+                        Timber.d("Uploading %s display image, %d bytes", variant.getKey(),
+                                variant.getValue().length);
+                        uploads.add(root.child(variant.getKey().storagePath(uid))
+                                .putBytes(variant.getValue(), metadata));
+                    }
+                    return Tasks.whenAll(uploads);
+                })
+                .onSuccessTask(uploaded -> root.child(DisplayImageVariant.LARGE.storagePath(uid))
+                        .getDownloadUrl());
     }
 
     Task<AuthResult> firebaseAuthWithGoogle(GoogleSignInAccount account) {
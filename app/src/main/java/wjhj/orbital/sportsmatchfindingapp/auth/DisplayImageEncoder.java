@@ -0,0 +1,107 @@
+package wjhj.orbital.sportsmatchfindingapp.auth;
+
+import android.content.ContentResolver;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.net.Uri;
+
+import com.bumptech.glide.load.engine.bitmap_recycle.BitmapPoolAdapter;
+import com.bumptech.glide.load.engine.bitmap_recycle.LruArrayPool;
+import com.bumptech.glide.load.resource.bitmap.DefaultImageHeaderParser;
+import com.bumptech.glide.load.resource.bitmap.TransformationUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.EnumMap;
+import java.util.Map;
+
+import wjhj.orbital.sportsmatchfindingapp.utils.DisplayImageVariant;
+
+/**
+ * Turns a picked picture into the {@link DisplayImageVariant}s that are uploaded. The picture is
+ * decoded once, subsampled to about the largest variant's size, and turned upright from its EXIF
+ * orientation, since re-encoding drops the EXIF data. Smaller variants are scaled down from that.
+ * Does blocking IO, so must not run on the main thread.
+ */
+final class DisplayImageEncoder {
+    private static final int WEBP_QUALITY = 80;
+
+    private DisplayImageEncoder() {
+    }
+
+    static Map<DisplayImageVariant, byte[]> encode(ContentResolver resolver, Uri image) throws IOException {
+        BitmapFactory.Options bounds = new BitmapFactory.Options();
+        bounds.inJustDecodeBounds = true;
+        decode(resolver, image, bounds);
+        if (bounds.outWidth <= 0 || bounds.outHeight <= 0) {
+            throw new IOException("Not a decodable image: " + image);
+        }
+
+        BitmapFactory.Options options = new BitmapFactory.Options();
+        options.inSampleSize = sampleSize(Math.max(bounds.outWidth, bounds.outHeight),
+                DisplayImageVariant.LARGE.getMaxEdgePx());
+        Bitmap decoded = decode(resolver, image, options);
+        if (decoded == null) {
+            throw new IOException("Not a decodable image: " + image);
+        }
+        Bitmap upright = TransformationUtils.rotateImageExif(new BitmapPoolAdapter(), decoded,
+                orientation(resolver, image));
+        if (upright != decoded) {
+            decoded.recycle();
+        }
+
+        Map<DisplayImageVariant, byte[]> variants = new EnumMap<>(DisplayImageVariant.class);
+        for (DisplayImageVariant variant : DisplayImageVariant.values()) {
+            Bitmap scaled = scaleToFit(upright, variant.getMaxEdgePx());
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            scaled.compress(Bitmap.CompressFormat.WEBP, WEBP_QUALITY, out);
+            variants.put(variant, out.toByteArray());
+            if (scaled != upright) {
+                scaled.recycle();
+            }
+        }
+        upright.recycle();
+        return variants;
+    }
+
+    // The largest power of two that keeps the longer edge at least maxEdge after subsampling.
+    static int sampleSize(int edge, int maxEdge) {
+        int sampleSize = 1;
+        while (edge / (sampleSize * 2) >= maxEdge) {
+            sampleSize *= 2;
+        }
+        return sampleSize;
+    }
+
+    private static Bitmap scaleToFit(Bitmap bitmap, int maxEdge) {
+        int edge = Math.max(bitmap.getWidth(), bitmap.getHeight());
+        if (edge <= maxEdge) {
+            return bitmap;
+        }
+        int width = Math.max(1, Math.round(bitmap.getWidth() * (float) maxEdge / edge));
+        int height = Math.max(1, Math.round(bitmap.getHeight() * (float) maxEdge / edge));
+        return Bitmap.createScaledBitmap(bitmap, width, height, true);
+    }
+
+    private static Bitmap decode(ContentResolver resolver, Uri image, BitmapFactory.Options options)
+            throws IOException {
+        try (InputStream in = open(resolver, image)) {
+            return BitmapFactory.decodeStream(in, null, options);
+        }
+    }
+
+    private static int orientation(ContentResolver resolver, Uri image) throws IOException {
+        try (InputStream in = open(resolver, image)) {
+            return new DefaultImageHeaderParser().getOrientation(in, new LruArrayPool());
+        }
+    }
+
+    private static InputStream open(ContentResolver resolver, Uri image) throws IOException {
+        InputStream in = resolver.openInputStream(image);
+        if (in == null) {
+            throw new IOException("Cannot open " + image);
+        }
+        return in;
+    }
+}
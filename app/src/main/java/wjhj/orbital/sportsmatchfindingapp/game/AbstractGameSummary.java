@@ -0,0 +1,74 @@
+package wjhj.orbital.sportsmatchfindingapp.game;
+
+import org.immutables.value.Value;
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalDateTime;
+import org.threeten.bp.LocalTime;
+
+/**
+ * The part of a {@link Game} shown on a game card. Lists load these instead of full games; the
+ * full game is only loaded once it is opened.
+ */
+@Value.Style(
+        stagedBuilder = true,
+        depluralize = true,
+        typeImmutable = "*",
+        init = "with*",
+        create = "new"
+)
+@Value.Immutable
+public abstract class AbstractGameSummary {
+
+    public abstract String getUid();
+
+    public abstract String getGameName();
+
+    public abstract Sport getSport();
+
+    public abstract Difficulty getSkillLevel();
+
+    public abstract String getPlaceName();
+
+    public abstract LocalDate getDate();
+
+    public abstract LocalTime getTime();
+
+    public abstract Duration getDuration();
+
+    public abstract int getMinPlayers();
+
+    public abstract int getMaxPlayers();
+
+    public abstract int getParticipantCount();
+
+    public static GameSummary of(AbstractGame game) {
+        return GameSummary.builder()
+                .withUid(game.getUid())
+                .withGameName(game.getGameName())
+                .withSport(game.getSport())
+                .withSkillLevel(game.getSkillLevel())
+                .withPlaceName(game.getPlaceName())
+                .withDate(game.getDate())
+                .withTime(game.getTime())
+                .withDuration(game.getDuration())
+                .withMinPlayers(game.getMinPlayers())
+                .withMaxPlayers(game.getMaxPlayers())
+                .withParticipantCount(game.getParticipatingUids().size())
+                .build();
+    }
+
+    public LocalDateTime getStartDateTime() {
+        return LocalDateTime.of(getDate(), getTime());
+    }
+
+    public int numExtraPlayersNeeded() {
+        int playersNeeded = getMinPlayers() - getParticipantCount();
+        return playersNeeded < 0 ? 0 : playersNeeded;
+    }
+
+    public boolean isComplete() {
+        return getStartDateTime().plus(getDuration())
+                .isBefore(LocalDateTime.now());
+    }
+}
@@ -9,7 +9,6 @@ import androidx.core.content.ContextCompat;
 import androidx.fragment.app.Fragment;
 import androidx.fragment.app.FragmentManager;
 import androidx.fragment.app.FragmentTransaction;
-import androidx.lifecycle.LiveData;
 import androidx.lifecycle.ViewModelProviders;
 import androidx.recyclerview.widget.LinearLayoutManager;
 import androidx.recyclerview.widget.RecyclerView;
@@ -27,14 +26,10 @@ import com.mapbox.mapboxsdk.geometry.LatLng;
 import com.mapbox.mapboxsdk.maps.MapboxMapOptions;
 import com.mapbox.mapboxsdk.maps.SupportMapFragment;
 
-import java.util.List;
-
 import wjhj.orbital.sportsmatchfindingapp.R;
 import wjhj.orbital.sportsmatchfindingapp.databinding.FragmentGameDetailsBinding;
-import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
 import wjhj.orbital.sportsmatchfindingapp.user.DisplayUserProfileFragment;
 import wjhj.orbital.sportsmatchfindingapp.user.FriendProfilesAdapter;
-import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
 
 /**
  * A simple {@link Fragment} subclass.
@@ -52,7 +47,6 @@ public class GameDetailsFragment extends Fragment implements FriendProfilesAdapt
 
     private GameDetailsViewModel viewModel;
     private FragmentGameDetailsBinding binding;
-    private SportalRepo repo;
 
 
     public GameDetailsFragment() {
@@ -81,7 +75,6 @@ public class GameDetailsFragment extends Fragment implements FriendProfilesAdapt
         if (getArguments() != null) {
             mGameUid = getArguments().getString(GAME_UID);
         }
-        repo = SportalRepo.getInstance();
         initViewModel();
     }
 
@@ -174,7 +167,6 @@ public class GameDetailsFragment extends Fragment implements FriendProfilesAdapt
                 RecyclerView.HORIZONTAL, false));
         recyclerView.setHasFixedSize(true);
 
-        LiveData<List<UserProfile>> participants = repo.getParticipatingUsers(mGameUid);
-        participants.observe(this, adapter::updateFriends);
+        viewModel.getParticipantProfiles().observe(this, adapter::updateFriends);
     }
 }
@@ -42,6 +42,7 @@ public class GameDetailsViewModel extends ViewModel {
     private LiveData<String> mPlaceName;
     private MediatorLiveData<Integer> mProgress;
     private LiveData<UserProfile> mOwner;
+    private LiveData<List<UserProfile>> mParticipantProfiles;
     private LiveData<String> mDescription;
     private LiveData<String> mDayOfWeek;
     private LiveData<String> mDaysLeft;
@@ -53,8 +54,10 @@ public class GameDetailsViewModel extends ViewModel {
     private MutableLiveData<Boolean> mResult;
 
     public GameDetailsViewModel(String gameUid) {
-        mGame = SportalRepo.getInstance().getGame(gameUid);
+        SportalRepo repo = SportalRepo.getInstance();
+        mGame = repo.getGame(gameUid);
         mParticipants = Transformations.map(mGame, Game::getParticipatingUids);
+        mParticipantProfiles = repo.loadUsers(mParticipants);
         mNumParticipating = Transformations.map(mParticipants, List::size);
         mMaxPlayers = Transformations.map(mGame, Game::getMaxPlayers);
         mMinPlayers = Transformations.map(mGame, Game::getMinPlayers);
@@ -101,8 +104,7 @@ public class GameDetailsViewModel extends ViewModel {
                 mProgress.setValue(0);
             }
         });
-        mOwner = Transformations
-                .switchMap(mGame, game -> SportalRepo.getInstance().getUser(game.getCreatorUid()));
+        mOwner = Transformations.switchMap(mGame, game -> repo.loadUser(game.getCreatorUid()));
         mDescription = Transformations.map(mGame, game -> game.getDescription().or(""));
         mDayOfWeek = Transformations.map(mGame, game -> game.getDate().getDayOfWeek().toString());
         mDaysLeft = Transformations.map(mGame, game -> getDaysLeft(game.getDate()));
@@ -127,6 +129,10 @@ public class GameDetailsViewModel extends ViewModel {
         return mParticipants;
     }
 
+    LiveData<List<UserProfile>> getParticipantProfiles() {
+        return mParticipantProfiles;
+    }
+
     public LiveData<Integer> getParticipating() {
         return mNumParticipating;
     }
@@ -243,7 +249,7 @@ public class GameDetailsViewModel extends ViewModel {
         if (gameUid != null) {
             if (isParticipant) {
                 mIsDisabled.setValue(true);
-                SportalRepo.getInstance().removeUserFromGame(FirebaseAuth.getInstance().getUid(), gameUid)
+                SportalRepo.getInstance().leaveGame(FirebaseAuth.getInstance().getUid(), gameUid)
                         .addOnCompleteListener(x -> mIsDisabled.setValue(false))
                         .addOnSuccessListener(x -> mResult.postValue(true))
                         .addOnFailureListener(e -> {
@@ -252,7 +258,7 @@ public class GameDetailsViewModel extends ViewModel {
                         });
             } else {
                 mIsDisabled.setValue(true);
-                SportalRepo.getInstance().addUserToGame(FirebaseAuth.getInstance().getUid(), gameUid)
+                SportalRepo.getInstance().joinGame(FirebaseAuth.getInstance().getUid(), gameUid)
                         .addOnCompleteListener(x -> mIsDisabled.setValue((false)))
                         .addOnSuccessListener(x -> mResult.postValue(true))
                         .addOnFailureListener(e -> {
@@ -146,7 +146,7 @@ public class HomepageActivity extends AppCompatActivity implements
         Authentications auths = new Authentications();
         auths.logOutFirebase();
         auths.logOutGoogle(this);
-        SportalRepo.getInstance().refreshCache();
+        SportalRepo.getInstance().clearLocalData();
         Intent logoutIntent = new Intent(this, LoginActivity.class);
         startActivity(logoutIntent);
         finish();
@@ -0,0 +1,150 @@
+package wjhj.orbital.sportsmatchfindingapp.homepage.gamespage;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.recyclerview.widget.LinearLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
+
+/**
+ * Warms the games on screen, and the next few in the direction of scrolling, into the repo
+ * before they are tapped: the game itself, its creator and its first participants. At most
+ * {@link #MAX_IN_FLIGHT} games are read at once. Queued games that scroll out of range are
+ * dropped, and nothing is queued during a fling until the list settles. Reads already started
+ * run to completion, since they cannot be abandoned. Must be used from the main thread.
+ */
+public class GamePrefetcher extends RecyclerView.OnScrollListener implements DefaultLifecycleObserver {
+    static final int MAX_IN_FLIGHT = 2;
+    static final int ITEMS_AHEAD = 4;
+    // Participants whose profiles are read along with each game, besides the creator.
+    static final int PARTICIPANTS = 4;
+
+    private final SportalRepo repo;
+    private final Function<Integer, String> gameIdAt;
+    private final Set<String> queued = new LinkedHashSet<>();
+    private final Set<String> inFlight = new HashSet<>();
+    // Recently prefetched games; the repo keeps them up to date from here on.
+    private final Cache<String, Boolean> prefetched = CacheBuilder.newBuilder()
+            .maximumSize(200)
+            .expireAfterWrite(5, TimeUnit.MINUTES)
+            .build();
+
+    private int firstInRange = RecyclerView.NO_POSITION;
+    private int lastInRange = RecyclerView.NO_POSITION;
+    private boolean scrollingUp;
+    private boolean stopped;
+
+    /**
+     * @param gameIdAt returns the id of the game at an adapter position, or null if there is none
+     */
+    public GamePrefetcher(SportalRepo repo, Function<Integer, String> gameIdAt) {
+        this.repo = repo;
+        this.gameIdAt = gameIdAt;
+    }
+
+    // Starts following the list until the view owning it is destroyed.
+    public static GamePrefetcher attach(RecyclerView recyclerView, LifecycleOwner viewLifecycleOwner,
+                                       Function<Integer, String> gameIdAt) {
+        GamePrefetcher prefetcher = new GamePrefetcher(SportalRepo.getInstance(), gameIdAt);
+        recyclerView.addOnScrollListener(prefetcher);
+        viewLifecycleOwner.getLifecycle().addObserver(prefetcher);
+        return prefetcher;
+    }
+
+    // Also called with no movement after a layout that changed the visible range.
+    @Override
+    public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+        if (recyclerView.getScrollState() != RecyclerView.SCROLL_STATE_SETTLING) {
+            update(recyclerView, dy);
+        }
+    }
+
+    @Override
+    public void onScrollStateChanged(@NonNull RecyclerView recyclerView, int newState) {
+        if (newState == RecyclerView.SCROLL_STATE_IDLE) {
+            update(recyclerView, 0);
+        }
+    }
+
+    @Override
+    public void onDestroy(@NonNull LifecycleOwner owner) {
+        stopped = true;
+        queued.clear();
+    }
+
+    private void update(RecyclerView recyclerView, int dy) {
+        RecyclerView.LayoutManager layoutManager = recyclerView.getLayoutManager();
+        if (stopped || !(layoutManager instanceof LinearLayoutManager)) {
+            return;
+        }
+        LinearLayoutManager linearLayoutManager = (LinearLayoutManager) layoutManager;
+        int first = linearLayoutManager.findFirstVisibleItemPosition();
+        int last = linearLayoutManager.findLastVisibleItemPosition();
+        if (first == RecyclerView.NO_POSITION) {
+            return;
+        }
+        if (dy != 0) {
+            scrollingUp = dy < 0;
+        }
+        if (scrollingUp) {
+            first = Math.max(0, first - ITEMS_AHEAD);
+        } else {
+            last = Math.min(layoutManager.getItemCount() - 1, last + ITEMS_AHEAD);
+        }
+        if (first == firstInRange && last == lastInRange && dy != 0) {
+            return;
+        }
+        firstInRange = first;
+        lastInRange = last;
+
+        // Games on screen go first, then the ones about to scroll into view.
+        List<String> wanted = new ArrayList<>();
+        for (int position = first; position <= last; position++) {
+            String gameId = gameIdAt.apply(position);
+            if (gameId != null && !inFlight.contains(gameId)
+                    && prefetched.getIfPresent(gameId) == null) {
+                wanted.add(gameId);
+            }
+        }
+        if (scrollingUp) {
+            Collections.reverse(wanted);
+        }
+        queued.clear();
+        queued.addAll(wanted);
+        startNext();
+    }
+
+    private void startNext() {
+        while (inFlight.size() < MAX_IN_FLIGHT && !queued.isEmpty()) {
+            String gameId = queued.iterator().next();
+            queued.remove(gameId);
+            inFlight.add(gameId);
+            repo.prefetchGame(gameId, PARTICIPANTS).addOnCompleteListener(task -> {
+                inFlight.remove(gameId);
+                if (task.isSuccessful()) {
+                    prefetched.put(gameId, true);
+                } else {
+                    Timber.d(task.getException(), "Prefetch failed for game %s", gameId);
+                }
+                if (!stopped) {
+                    startNext();
+                }
+            });
+        }
+    }
+}
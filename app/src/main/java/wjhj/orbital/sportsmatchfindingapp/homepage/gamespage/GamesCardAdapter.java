@@ -4,6 +4,7 @@ import android.view.LayoutInflater;
 import android.view.ViewGroup;
 
 import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
 import androidx.cardview.widget.CardView;
 import androidx.recyclerview.widget.DiffUtil;
 import androidx.recyclerview.widget.RecyclerView;
@@ -12,15 +13,15 @@ import java.util.ArrayList;
 import java.util.List;
 
 import wjhj.orbital.sportsmatchfindingapp.databinding.GamesCardViewBinding;
-import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 
 public class GamesCardAdapter extends RecyclerView.Adapter<GamesCardAdapter.CardViewHolder> {
 
     public interface GameCardClickedListener {
-        void onGameSelected(Game game);
+        void onGameSelected(GameSummary game);
     }
 
-    private List<Game> games;
+    private List<GameSummary> games;
     private GameCardClickedListener listener;
 
     public GamesCardAdapter(GameCardClickedListener listener) {
@@ -28,7 +29,7 @@ public class GamesCardAdapter extends RecyclerView.Adapter<GamesCardAdapter.Card
         this.listener = listener;
     }
 
-    public void updateGames(List<Game> newGames) {
+    public void updateGames(List<GameSummary> newGames) {
         DiffUtil.DiffResult result = DiffUtil.calculateDiff(new GamesDiffCallback(games, newGames),
                 true);
         games = newGames;
@@ -56,6 +57,11 @@ public class GamesCardAdapter extends RecyclerView.Adapter<GamesCardAdapter.Card
         return games.size();
     }
 
+    @Nullable
+    public GameSummary getGameAt(int position) {
+        return position < games.size() ? games.get(position) : null;
+    }
+
 
     static class CardViewHolder extends RecyclerView.ViewHolder {
 
@@ -68,7 +74,7 @@ public class GamesCardAdapter extends RecyclerView.Adapter<GamesCardAdapter.Card
             cardBinding = binding;
         }
 
-        private void setGame(Game game) {
+        void setGame(GameSummary game) {
             cardBinding.setGame(game);
             cardBinding.executePendingBindings();
         }
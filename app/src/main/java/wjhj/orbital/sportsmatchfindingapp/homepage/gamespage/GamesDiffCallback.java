@@ -4,14 +4,14 @@ import androidx.recyclerview.widget.DiffUtil;
 
 import java.util.List;
 
-import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 
 public class GamesDiffCallback extends DiffUtil.Callback {
 
-    private List<Game> oldGames;
-    private List<Game> newGames;
+    private List<GameSummary> oldGames;
+    private List<GameSummary> newGames;
 
-    public GamesDiffCallback(List<Game> oldGames, List<Game> newGames) {
+    public GamesDiffCallback(List<GameSummary> oldGames, List<GameSummary> newGames) {
         this.oldGames = oldGames;
         this.newGames = newGames;
     }
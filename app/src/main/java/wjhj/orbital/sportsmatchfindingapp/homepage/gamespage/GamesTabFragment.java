@@ -23,6 +23,7 @@ import wjhj.orbital.sportsmatchfindingapp.databinding.FragmentGamesTabBinding;
 import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
 import wjhj.orbital.sportsmatchfindingapp.game.GameActivity;
 import wjhj.orbital.sportsmatchfindingapp.game.GameStatus;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
 import wjhj.orbital.sportsmatchfindingapp.user.UserProfileViewModel;
 
@@ -99,6 +100,10 @@ public class GamesTabFragment extends Fragment implements AdapterView.OnItemSele
             startActivity(intent);
         });
         recyclerView.setAdapter(mGamesCardAdapter);
+        GamePrefetcher.attach(recyclerView, getViewLifecycleOwner(), position -> {
+            GameSummary game = mGamesCardAdapter.getGameAt(position);
+            return game == null ? null : game.getUid();
+        });
 
         gamesTabViewModel.getGamesLiveData().observe(getViewLifecycleOwner(), mGamesCardAdapter::updateGames);
         gamesTabViewModel.getFilteredGames().observe(getViewLifecycleOwner(), mGamesCardAdapter::updateGames);
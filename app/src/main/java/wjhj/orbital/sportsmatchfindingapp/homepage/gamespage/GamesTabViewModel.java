@@ -12,16 +12,16 @@ import java.util.List;
 
 import timber.log.Timber;
 import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
-import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
 
 public class GamesTabViewModel extends ViewModel {
 
-    private MediatorLiveData<List<Game>> gamesLiveData = new MediatorLiveData<>();
-    private MutableLiveData<List<Game>> filteredGames = new MutableLiveData<>();
-    private MutableLiveData<Comparator<Game>> currentSort = new MutableLiveData<>();
+    private MediatorLiveData<List<GameSummary>> gamesLiveData = new MediatorLiveData<>();
+    private MutableLiveData<List<GameSummary>> filteredGames = new MutableLiveData<>();
+    private MutableLiveData<Comparator<GameSummary>> currentSort = new MutableLiveData<>();
 
-    public GamesTabViewModel(LiveData<List<Game>> source) {
+    public GamesTabViewModel(LiveData<List<GameSummary>> source) {
         currentSort.setValue((game1, game2) -> game1.getStartDateTime().compareTo(game2.getStartDateTime()));
 
         gamesLiveData.addSource(source, newGames -> {
@@ -36,21 +36,21 @@ public class GamesTabViewModel extends ViewModel {
         gamesLiveData.addSource(currentSort, newComparator -> {
             Timber.d("list of games sorted!");
             if (gamesLiveData.getValue() != null) {
-                List<Game> currGames = new ArrayList<>(gamesLiveData.getValue());
+                List<GameSummary> currGames = new ArrayList<>(gamesLiveData.getValue());
                 Collections.sort(currGames, newComparator);
                 gamesLiveData.setValue(currGames);
             }
         });
     }
 
-    void sortGames(Comparator<Game> comparator) {
+    void sortGames(Comparator<GameSummary> comparator) {
         currentSort.setValue(comparator);
     }
 
     void filterSports(Sport filter) {
         if (gamesLiveData.getValue() != null) {
-            List<Game> filtered = new ArrayList<>();
-            for (Game game : gamesLiveData.getValue()) {
+            List<GameSummary> filtered = new ArrayList<>();
+            for (GameSummary game : gamesLiveData.getValue()) {
                 if (game.getSport() == filter) {
                     filtered.add(game);
                 }
@@ -61,8 +61,8 @@ public class GamesTabViewModel extends ViewModel {
 
     void filterDifficulty(Difficulty filter) {
         if (gamesLiveData.getValue() != null) {
-            List<Game> filtered = new ArrayList<>();
-            for (Game game : gamesLiveData.getValue()) {
+            List<GameSummary> filtered = new ArrayList<>();
+            for (GameSummary game : gamesLiveData.getValue()) {
                 if (game.getSkillLevel() == filter) {
                     filtered.add(game);
                 }
@@ -71,11 +71,11 @@ public class GamesTabViewModel extends ViewModel {
         }
     }
 
-    LiveData<List<Game>> getGamesLiveData() {
+    LiveData<List<GameSummary>> getGamesLiveData() {
         return gamesLiveData;
     }
 
-    LiveData<List<Game>> getFilteredGames() {
+    LiveData<List<GameSummary>> getFilteredGames() {
         if (gamesLiveData.getValue() != null) {
             filteredGames.setValue(gamesLiveData.getValue());
         }
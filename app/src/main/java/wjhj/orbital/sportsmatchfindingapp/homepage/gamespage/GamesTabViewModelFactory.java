@@ -9,16 +9,16 @@ import androidx.lifecycle.ViewModelProvider;
 import java.lang.reflect.InvocationTargetException;
 import java.util.List;
 
-import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.GameStatus;
 import wjhj.orbital.sportsmatchfindingapp.user.UserProfileViewModel;
 
 public class GamesTabViewModelFactory implements ViewModelProvider.Factory {
 
-    private final LiveData<List<Game>> source;
+    private final LiveData<List<GameSummary>> source;
 
     GamesTabViewModelFactory(GameStatus gameStatus, UserProfileViewModel userProfileViewModel) {
-        source = Transformations.map(userProfileViewModel.getGames(),
+        source = Transformations.map(userProfileViewModel.getGameSummaries(),
                 value -> value.get(gameStatus));
     }
 
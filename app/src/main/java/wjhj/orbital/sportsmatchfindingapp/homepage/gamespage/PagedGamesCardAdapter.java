@@ -0,0 +1,60 @@
+package wjhj.orbital.sportsmatchfindingapp.homepage.gamespage;
+
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+import androidx.cardview.widget.CardView;
+import androidx.paging.PagedListAdapter;
+import androidx.recyclerview.widget.DiffUtil;
+
+import wjhj.orbital.sportsmatchfindingapp.databinding.GamesCardViewBinding;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
+
+// Game cards for a PagedList, which loads further pages as the list is scrolled towards them.
+public class PagedGamesCardAdapter extends PagedListAdapter<GameSummary, GamesCardAdapter.CardViewHolder> {
+
+    private static final DiffUtil.ItemCallback<GameSummary> DIFF_CALLBACK =
+            new DiffUtil.ItemCallback<GameSummary>() {
+                @Override
+                public boolean areItemsTheSame(@NonNull GameSummary oldGame, @NonNull GameSummary newGame) {
+                    return oldGame.getUid().equals(newGame.getUid());
+                }
+
+                @Override
+                public boolean areContentsTheSame(@NonNull GameSummary oldGame, @NonNull GameSummary newGame) {
+                    return oldGame.equals(newGame);
+                }
+            };
+
+    private GamesCardAdapter.GameCardClickedListener listener;
+
+    public PagedGamesCardAdapter(GamesCardAdapter.GameCardClickedListener listener) {
+        super(DIFF_CALLBACK);
+        this.listener = listener;
+    }
+
+    @NonNull
+    @Override
+    public GamesCardAdapter.CardViewHolder onCreateViewHolder(@NonNull ViewGroup parent, int viewType) {
+        LayoutInflater inflater = LayoutInflater.from(parent.getContext());
+        GamesCardViewBinding binding = GamesCardViewBinding.inflate(inflater, parent, false);
+
+        return new GamesCardAdapter.CardViewHolder((CardView) binding.getRoot(), binding);
+    }
+
+    @Override
+    public void onBindViewHolder(@NonNull GamesCardAdapter.CardViewHolder holder, int position) {
+        // Placeholders are disabled, so every bound position holds a loaded game.
+        GameSummary game = getItem(position);
+        holder.setGame(game);
+        holder.itemView.setOnClickListener(view -> listener.onGameSelected(game));
+    }
+
+    // Also asks the PagedList to load around the position, as binding it would.
+    @Nullable
+    public GameSummary getGameAt(int position) {
+        return position < getItemCount() ? getItem(position) : null;
+    }
+}
@@ -0,0 +1,85 @@
+package wjhj.orbital.sportsmatchfindingapp.homepage.searchpage;
+
+import android.location.Location;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+
+/**
+ * Search result orderings made of ranking keys, applied in turn until two games differ and
+ * finally by game id, so that every ordering is total as {@code RankedList} requires.
+ */
+final class GameRanking {
+
+    enum Key {
+        // Closest to the search point first; has no effect without one.
+        DISTANCE,
+        START_TIME,
+        PLAYERS_NEEDED,
+        // Sports in the user's preference order, then every other sport.
+        SPORT_PREFERENCE,
+        SPORT,
+        SKILL_LEVEL
+    }
+
+    private GameRanking() {
+    }
+
+    static Comparator<Game> comparator(List<Key> keys, @Nullable GeoPoint searchPoint,
+                                       List<Sport> sportPreferences) {
+        List<Key> ranking = new ArrayList<>(keys);
+        if (searchPoint == null) {
+            ranking.remove(Key.DISTANCE);
+        }
+        return (game1, game2) -> {
+            for (Key key : ranking) {
+                int result = compare(key, game1, game2, searchPoint, sportPreferences);
+                if (result != 0) {
+                    return result;
+                }
+            }
+            return game1.getUid().compareTo(game2.getUid());
+        };
+    }
+
+    private static int compare(Key key, Game game1, Game game2, GeoPoint searchPoint,
+                               List<Sport> sportPreferences) {
+        switch (key) {
+            case DISTANCE:
+                return Float.compare(distance(searchPoint, game1), distance(searchPoint, game2));
+            case START_TIME:
+                return game1.getStartDateTime().compareTo(game2.getStartDateTime());
+            case PLAYERS_NEEDED:
+                return Integer.compare(game1.numExtraPlayersNeeded(), game2.numExtraPlayersNeeded());
+            case SPORT_PREFERENCE:
+                return Integer.compare(preference(sportPreferences, game1.getSport()),
+                        preference(sportPreferences, game2.getSport()));
+            case SPORT:
+                return Integer.compare(game1.getSport().ordinal(), game2.getSport().ordinal());
+            case SKILL_LEVEL:
+                return Integer.compare(game1.getSkillLevel().ordinal(), game2.getSkillLevel().ordinal());
+            default:
+                return 0;
+        }
+    }
+
+    private static float distance(GeoPoint searchPoint, Game game) {
+        float[] results = new float[1];
+        Location.distanceBetween(searchPoint.getLatitude(), searchPoint.getLongitude(),
+                game.getLocation().getLatitude(), game.getLocation().getLongitude(), results);
+        return results[0];
+    }
+
+    private static int preference(List<Sport> sportPreferences, Sport sport) {
+        int index = sportPreferences.indexOf(sport);
+        return index < 0 ? sportPreferences.size() : index;
+    }
+}
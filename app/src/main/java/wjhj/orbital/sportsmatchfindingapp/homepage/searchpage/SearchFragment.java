@@ -33,8 +33,11 @@ import wjhj.orbital.sportsmatchfindingapp.databinding.FragmentSearchBinding;
 import wjhj.orbital.sportsmatchfindingapp.dialogs.SearchFilterDialogFragment;
 import wjhj.orbital.sportsmatchfindingapp.dialogs.SportMultiSelectDialogFragment;
 import wjhj.orbital.sportsmatchfindingapp.game.GameActivity;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.homepage.gamespage.GamePrefetcher;
 import wjhj.orbital.sportsmatchfindingapp.homepage.gamespage.GamesCardAdapter;
+import wjhj.orbital.sportsmatchfindingapp.homepage.gamespage.PagedGamesCardAdapter;
 import wjhj.orbital.sportsmatchfindingapp.maps.LocationPickerMapFragment;
 import wjhj.orbital.sportsmatchfindingapp.repo.GameSearchFilter;
 
@@ -122,15 +125,34 @@ public class SearchFragment extends Fragment implements
     private void setUpRecyclerView(RecyclerView recyclerView) {
         recyclerView.setHasFixedSize(true);
         recyclerView.setLayoutManager(new LinearLayoutManager(getContext()));
-        GamesCardAdapter mGamesCardAdapter = new GamesCardAdapter(game -> {
+        GamesCardAdapter.GameCardClickedListener openGame = game -> {
             Intent intent = new Intent(requireActivity(), GameActivity.class);
             intent.putExtra(GameActivity.GAME_UID, game.getUid());
             startActivity(intent);
+        };
+        GamesCardAdapter mGamesCardAdapter = new GamesCardAdapter(openGame);
+        PagedGamesCardAdapter mPagedGamesCardAdapter = new PagedGamesCardAdapter(openGame);
+        GamePrefetcher.attach(recyclerView, getViewLifecycleOwner(), position -> {
+            GameSummary game = recyclerView.getAdapter() == mPagedGamesCardAdapter
+                    ? mPagedGamesCardAdapter.getGameAt(position)
+                    : mGamesCardAdapter.getGameAt(position);
+            return game == null ? null : game.getUid();
         });
-        recyclerView.setAdapter(mGamesCardAdapter);
 
-        searchViewModel.getGamesData()
-                .observe(getViewLifecycleOwner(), mGamesCardAdapter::updateGames);
+        // Only the results feeding the adapter on screen are observed, so only they are queried.
+        searchViewModel.isPaged().observe(getViewLifecycleOwner(), paged -> {
+            if (paged && recyclerView.getAdapter() != mPagedGamesCardAdapter) {
+                searchViewModel.getGamesData().removeObservers(getViewLifecycleOwner());
+                recyclerView.setAdapter(mPagedGamesCardAdapter);
+                searchViewModel.getPagedGamesData()
+                        .observe(getViewLifecycleOwner(), mPagedGamesCardAdapter::submitList);
+            } else if (!paged && recyclerView.getAdapter() != mGamesCardAdapter) {
+                searchViewModel.getPagedGamesData().removeObservers(getViewLifecycleOwner());
+                recyclerView.setAdapter(mGamesCardAdapter);
+                searchViewModel.getGamesData()
+                        .observe(getViewLifecycleOwner(), mGamesCardAdapter::updateGames);
+            }
+        });
     }
 
     public void updateFilterFromSearchFilterDialog(GameSearchFilter filter) {
@@ -149,20 +171,20 @@ public class SearchFragment extends Fragment implements
         if (parent.getId() == R.id.sort_spinner) {
             switch(position) {
                 case 0:
-                    searchViewModel.sortGames((game1, game2)
-                            -> game1.getStartDateTime().compareTo(game2.getStartDateTime()));
+                    searchViewModel.sortGamesByStartTime();
                     break;
                 case 1:
-                    searchViewModel.sortGames((game1, game2)
-                            -> Integer.compare(game1.numExtraPlayersNeeded(), game2.numExtraPlayersNeeded()));
+                    searchViewModel.rankGames(GameRanking.Key.PLAYERS_NEEDED,
+                            GameRanking.Key.SPORT_PREFERENCE, GameRanking.Key.DISTANCE,
+                            GameRanking.Key.START_TIME);
                     break;
                 case 2:
-                    searchViewModel.sortGames((game1, game2)
-                            -> Integer.compare(game1.getSport().ordinal(), game2.getSport().ordinal()));
+                    searchViewModel.rankGames(GameRanking.Key.SPORT_PREFERENCE, GameRanking.Key.SPORT,
+                            GameRanking.Key.DISTANCE, GameRanking.Key.START_TIME);
                     break;
                 case 3:
-                    searchViewModel.sortGames((game1, game2)
-                            -> Integer.compare(game1.getSkillLevel().ordinal(), game2.getSkillLevel().ordinal()));
+                    searchViewModel.rankGames(GameRanking.Key.SKILL_LEVEL, GameRanking.Key.DISTANCE,
+                            GameRanking.Key.START_TIME);
                     break;
             }
         }
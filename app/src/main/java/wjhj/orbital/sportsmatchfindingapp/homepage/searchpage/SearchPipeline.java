@@ -0,0 +1,86 @@
+package wjhj.orbital.sportsmatchfindingapp.homepage.searchpage;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java9.util.function.Consumer;
+import timber.log.Timber;
+
+/**
+ * Rate limits search text on its way into the search filters. Text is passed on once it has been
+ * stable for the debounce delay; text shorter than the minimum length searches for every name,
+ * and clearing the text applies at once. Each text passed on starts a new query generation,
+ * which supersedes the queries of the last one. Must be used from the main thread.
+ */
+class SearchPipeline {
+    static final long DEFAULT_DEBOUNCE_MILLIS = 300;
+    static final int DEFAULT_MIN_QUERY_LENGTH = 2;
+
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final long debounceMillis;
+    private final int minQueryLength;
+    private final Consumer<String> issue;
+
+    private Runnable pending;
+    private String lastIssued = "";
+    private int generation;
+    private int queriesIssued;
+    private int queriesSuppressed;
+
+    /**
+     * @param issue applies a name query to the search filters, which starts the queries for it
+     */
+    SearchPipeline(long debounceMillis, int minQueryLength, Consumer<String> issue) {
+        this.debounceMillis = debounceMillis;
+        this.minQueryLength = minQueryLength;
+        this.issue = issue;
+    }
+
+    void submit(String text) {
+        String query = text == null ? "" : text.trim();
+        if (query.length() < minQueryLength) {
+            query = "";
+        }
+        cancel();
+
+        if (query.equals(lastIssued)) {
+            queriesSuppressed++;
+        } else if (query.isEmpty()) {
+            issue(query);
+        } else {
+            String debouncedQuery = query;
+            pending = () -> {
+                pending = null;
+                issue(debouncedQuery);
+            };
+            handler.postDelayed(pending, debounceMillis);
+        }
+    }
+
+    // Drops the text waiting for its debounce delay, if any.
+    void cancel() {
+        if (pending != null) {
+            handler.removeCallbacks(pending);
+            pending = null;
+            queriesSuppressed++;
+        }
+    }
+
+    int getQueriesIssued() {
+        return queriesIssued;
+    }
+
+    // Text changes that never became a query: debounced, too short or unchanged.
+    int getQueriesSuppressed() {
+        return queriesSuppressed;
+    }
+
+    private void issue(String query) {
+        generation++;
+        queriesIssued++;
+        lastIssued = query;
+        Timber.d("Search generation %d for \"%s\" (%d issued, %d suppressed)", generation, query,
+                queriesIssued, queriesSuppressed);
+        issue.accept(query);
+    }
+}
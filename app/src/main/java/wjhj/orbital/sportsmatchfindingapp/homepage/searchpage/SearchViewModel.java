@@ -1,27 +1,31 @@
 package wjhj.orbital.sportsmatchfindingapp.homepage.searchpage;
 
-import android.util.Log;
-
 import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
+import androidx.paging.PagedList;
 
+import com.google.common.base.Objects;
 import com.google.common.collect.ImmutableList;
+import com.google.firebase.firestore.GeoPoint;
 
 
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Comparator;
 
 import java.util.List;
 import java.util.Map;
 
+import timber.log.Timber;
 import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
 import wjhj.orbital.sportsmatchfindingapp.repo.GameSearchFilter;
 import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
+import wjhj.orbital.sportsmatchfindingapp.utils.RankedList;
 
 
 public class SearchViewModel extends ViewModel {
@@ -30,42 +34,61 @@ public class SearchViewModel extends ViewModel {
     private LiveData<String> sportsSelectionText;
     private MutableLiveData<ImmutableList<Sport>> sportsSelection;
 
-    private MediatorLiveData<List<Game>> liveGamesData;
+    private MediatorLiveData<List<GameSummary>> liveGamesData;
+    private LiveData<PagedList<GameSummary>> pagedGamesData;
+    private MutableLiveData<Boolean> sortedByStartTime;
+    private MediatorLiveData<Boolean> paged;
 
     private MutableLiveData<String> searchParameter;
+    private SearchPipeline searchPipeline;
     private MediatorLiveData<GameSearchFilter> searchFilters;
-    private MutableLiveData<Comparator<Game>> sortComparator;
+    private MutableLiveData<List<GameRanking.Key>> ranking;
+    private ImmutableList<Sport> sportPreferences;
+    // Kept in ranking order as results arrive, instead of being sorted again on every emission.
+    private RankedList<Game> rankedGames;
+    private GeoPoint rankedAround;
 
     public SearchViewModel(ImmutableList<Sport> sportPreferences) {
         repo = SportalRepo.getInstance();
+        this.sportPreferences = sportPreferences == null ? ImmutableList.of() : sportPreferences;
 
         searchFilters = new MediatorLiveData<>();
         searchFilters.setValue(new GameSearchFilter());
+        ranking = new MutableLiveData<>();
+        ranking.setValue(Arrays.asList(GameRanking.Key.SPORT_PREFERENCE, GameRanking.Key.SPORT,
+                GameRanking.Key.START_TIME));
+        rankedGames = new RankedList<>(Game::getUid, rankingComparator());
+
         liveGamesData = new MediatorLiveData<>();
         LiveData<Map<String, Game>> source1 = Transformations
-                .switchMap(searchFilters, filters -> {
-                    Log.d("hi", "switching");
-                    return repo.getGamesWithFilters(filters);
-                });
+                .switchMap(searchFilters, repo::getGamesWithFilters);
         liveGamesData.addSource(source1, map -> {
-            Log.d("hi", "triggered");
-            List<Game> games = new ArrayList<>(map.values());
-            Collections.sort(games, sortComparator.getValue());
-            liveGamesData.setValue(games);
+            GeoPoint searchPoint = searchFilters.getValue().getLocationQuery();
+            if (!Objects.equal(searchPoint, rankedAround)) {
+                rankedAround = searchPoint;
+                rankedGames.setComparator(rankingComparator());
+            }
+            // Each emission is one query snapshot; only the games it added, changed or dropped move.
+            if (rankedGames.replaceAll(map.values()) || liveGamesData.getValue() == null) {
+                emitRankedGames();
+            }
         });
 
-        sortComparator = new MutableLiveData<>();
-        sortComparator.setValue((game1, game2) -> Integer
-                .compare(game1.getSport().ordinal(), game2.getSport().ordinal()));
-
-        liveGamesData.addSource(sortComparator, newComparator -> {
+        liveGamesData.addSource(ranking, keys -> {
+            rankedGames.setComparator(rankingComparator());
             if (liveGamesData.getValue() != null) {
-                List<Game> currGames = new ArrayList<>(liveGamesData.getValue());
-                Collections.sort(currGames, newComparator);
-                liveGamesData.setValue(currGames);
+                emitRankedGames();
             }
         });
 
+        // Start time order can be paged from the server, except around a location.
+        pagedGamesData = Transformations.switchMap(searchFilters, repo::getPagedGamesWithFilters);
+        sortedByStartTime = new MutableLiveData<>();
+        sortedByStartTime.setValue(false);
+        paged = new MediatorLiveData<>();
+        paged.addSource(sortedByStartTime, sorted -> updatePaged());
+        paged.addSource(searchFilters, filters -> updatePaged());
+
         sportsSelection = new MutableLiveData<>();
         searchParameter = new MutableLiveData<>();
 
@@ -73,16 +96,21 @@ public class SearchViewModel extends ViewModel {
                 .map(sportsSelection, this::configureSportsSelectionText);
 
         searchFilters.addSource(sportsSelection, sports -> {
-            Log.d("hi", "Sports selection changed: " + sports.size());
+            Timber.d("Sports selection changed: %d", sports.size());
             GameSearchFilter filter = searchFilters.getValue();
             filter.setSportQuery(sports);
             searchFilters.setValue(filter);
         });
+        // Text is debounced so that typing does not start a query fan-out per keystroke.
+        searchPipeline = new SearchPipeline(SearchPipeline.DEFAULT_DEBOUNCE_MILLIS,
+                SearchPipeline.DEFAULT_MIN_QUERY_LENGTH, query -> {
+                    GameSearchFilter filter = searchFilters.getValue();
+                    filter.setNameQuery(query);
+                    searchFilters.setValue(filter);
+                });
         searchFilters.addSource(searchParameter, para -> {
-            Log.d("hi", "Search parameter changed to " + para);
-            GameSearchFilter filter = searchFilters.getValue();
-            filter.setNameQuery(para);
-            searchFilters.setValue(filter);
+            Timber.d("Search parameter changed to %s", para);
+            searchPipeline.submit(para);
         });
 
         sportsSelection.setValue(sportPreferences);
@@ -110,10 +138,26 @@ public class SearchViewModel extends ViewModel {
         }
     }
 
-    public LiveData<List<Game>> getGamesData() {
+    public LiveData<List<GameSummary>> getGamesData() {
         return liveGamesData;
     }
 
+    public LiveData<PagedList<GameSummary>> getPagedGamesData() {
+        return pagedGamesData;
+    }
+
+    // Whether results should be shown from getPagedGamesData() rather than getGamesData().
+    public LiveData<Boolean> isPaged() {
+        return paged;
+    }
+
+    private void updatePaged() {
+        boolean shouldPage = sortedByStartTime.getValue() && !searchFilters.getValue().hasLocationQuery();
+        if (paged.getValue() == null || paged.getValue() != shouldPage) {
+            paged.setValue(shouldPage);
+        }
+    }
+
     private String configureSportsSelectionText(ImmutableList<Sport> sports) {
         if (sports.size() == 0) {
             return "None";
@@ -124,8 +168,34 @@ public class SearchViewModel extends ViewModel {
         }
     }
 
-    public void sortGames(Comparator<Game> comparator) {
-        sortComparator.setValue(comparator);
+    // Ranks by each key in turn; used for every sort order except plain start time.
+    void rankGames(GameRanking.Key... keys) {
+        sortedByStartTime.setValue(false);
+        ranking.setValue(Arrays.asList(keys));
+    }
+
+    public void sortGamesByStartTime() {
+        ranking.setValue(Arrays.asList(GameRanking.Key.START_TIME, GameRanking.Key.DISTANCE));
+        sortedByStartTime.setValue(true);
+    }
+
+    private Comparator<Game> rankingComparator() {
+        return GameRanking.comparator(ranking.getValue(), rankedAround, sportPreferences);
+    }
+
+    private void emitRankedGames() {
+        List<GameSummary> games = new ArrayList<>(rankedGames.size());
+        for (Game game : rankedGames.toList()) {
+            games.add(GameSummary.of(game));
+        }
+        liveGamesData.setValue(games);
+    }
+
+    @Override
+    protected void onCleared() {
+        searchPipeline.cancel();
+        Timber.d("Search queries issued: %d, suppressed: %d", searchPipeline.getQueriesIssued(),
+                searchPipeline.getQueriesSuppressed());
     }
 
     public void updateSports(List<Sport> sports) {
@@ -13,8 +13,8 @@ import java.util.List;
 
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
 import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
+import wjhj.orbital.sportsmatchfindingapp.repo.UserDirectorySearch;
 import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
-import wjhj.orbital.sportsmatchfindingapp.utils.BatchTransformations;
 
 public class SocialFriendsViewModel extends ViewModel {
 
@@ -22,21 +22,30 @@ public class SocialFriendsViewModel extends ViewModel {
     private LiveData<List<UserProfile>> friends;
     private MutableLiveData<String> searchText;
     private LiveData<List<UserProfile>> searchedProfiles;
+    private UserDirectorySearch userSearch;
 
     public SocialFriendsViewModel(String userUid) {
         SportalRepo repo = SportalRepo.getInstance();
         currUser = repo.getUser(userUid);
         LiveData<List<String>> friendUids = Transformations.map(currUser, UserProfile::getFriendUids);
-        friends = BatchTransformations.switchMapList(friendUids, repo::getUser, UserProfile::getUid);
+        friends = repo.loadUsers(friendUids);
         searchText = new MutableLiveData<>();
+        userSearch = repo.newUserSearch();
+        // Always the same results LiveData; each keystroke only updates the query.
         searchedProfiles = Transformations.switchMap(searchText, text -> {
+            userSearch.setQuery(text);
             if (!text.isEmpty()) {
-                return repo.selectUsersStartingWith("displayName", text);
+                return userSearch.getResults();
             }
             return null;
         });
     }
 
+    @Override
+    protected void onCleared() {
+        userSearch.cancel();
+    }
+
     LiveData<List<UserProfile>> getFriends() {
         return friends;
     }
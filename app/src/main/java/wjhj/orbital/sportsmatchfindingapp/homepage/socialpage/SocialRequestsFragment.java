@@ -79,7 +79,7 @@ public class SocialRequestsFragment extends Fragment implements DataBindingListA
         LiveData<List<String>> friendRequestUids = Transformations.map(repo.getUser(currUserUid),
                 UserProfile::getReceivedFriendRequests);
 
-        BatchTransformations.switchMapList(friendRequestUids, repo::getUser, UserProfile::getUid)
+        BatchTransformations.coalescingSwitchMapList(friendRequestUids, repo::getUser, UserProfile::getUid)
                 .observe(getViewLifecycleOwner(), userProfiles -> {
                     adapter.submitList(userProfiles);
                     if (userProfiles.isEmpty()) {
@@ -0,0 +1,85 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.common.base.Optional;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.immutables.value.Value;
+import org.threeten.bp.LocalDate;
+
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+
+/**
+ * A snapshot of a {@link GameSearchFilter} that is equal for filters finding the same games, used
+ * to key cached search results. Facets selecting every value are the same as no selection, names
+ * are normalized as for name search and the search circle is rounded to about 10 m. The location
+ * name is only shown to the user and is left out.
+ */
+@Value.Style(
+        stagedBuilder = true,
+        depluralize = true,
+        typeImmutable = "*",
+        init = "with*",
+        create = "new"
+)
+@Value.Immutable
+abstract class AbstractGameSearchKey {
+    // Degrees of latitude or longitude per rounding step, about 11 m at the equator.
+    private static final double LOCATION_STEP = 1e-4;
+    private static final double RADIUS_STEP_KM = 0.1;
+
+    abstract Set<Sport> getSports();
+
+    abstract Set<TimeOfDay> getTimesOfDay();
+
+    abstract Set<Difficulty> getSkillLevels();
+
+    abstract String getName();
+
+    abstract Optional<GeoPoint> getLocation();
+
+    abstract double getRadiusKm();
+
+    abstract Optional<LocalDate> getStartDate();
+
+    abstract Optional<LocalDate> getEndDate();
+
+    static GameSearchKey of(GameSearchFilter filter) {
+        GeoPoint location = null;
+        double radiusKm = 0;
+        if (filter.hasLocationQuery()) {
+            location = new GeoPoint(round(filter.getLocationQuery().getLatitude(), LOCATION_STEP),
+                    round(filter.getLocationQuery().getLongitude(), LOCATION_STEP));
+            radiusKm = round(filter.getLocationQueryRadius(), RADIUS_STEP_KM);
+        }
+        boolean dated = filter.hasDateRangeQuery();
+        return GameSearchKey.builder()
+                .withName(GameNameIndex.normalize(filter.getNameQuery()))
+                .withRadiusKm(radiusKm)
+                .addAllSports(canonical(filter.getSportQuery(), Sport.class))
+                .addAllTimesOfDay(canonical(filter.getTimeOfDayQuery(), TimeOfDay.class))
+                .addAllSkillLevels(canonical(filter.getSkillLevelQuery(), Difficulty.class))
+                .withLocation(Optional.fromNullable(location))
+                .withStartDate(Optional.fromNullable(dated ? filter.getStartDateQuery() : null))
+                .withEndDate(Optional.fromNullable(dated ? filter.getEndDateQuery() : null))
+                .build();
+    }
+
+    private static <E extends Enum<E>> Set<E> canonical(List<E> values, Class<E> type) {
+        Set<E> set = EnumSet.noneOf(type);
+        if (values != null) {
+            set.addAll(values);
+        }
+        // Every game has exactly one value of each facet, so selecting them all filters nothing.
+        return set.size() == type.getEnumConstants().length ? EnumSet.noneOf(type) : set;
+    }
+
+    private static double round(double value, double step) {
+        return Math.round(value / step) * step;
+    }
+}
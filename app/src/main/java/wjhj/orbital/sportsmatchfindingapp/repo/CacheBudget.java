@@ -0,0 +1,172 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.app.ActivityManager;
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+
+import androidx.lifecycle.LiveData;
+
+import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
+
+/**
+ * Sizes the repo caches from the app's heap limit instead of fixed entry counts. Games and users
+ * are weighed by their content where it is kept, in the {@link EntityStore}s. The caches only
+ * keep views of them, a LiveData chain and a snapshot listener each, which weigh about the same
+ * whatever they show, so those are bounded by count.
+ */
+final class CacheBudget {
+    // Rough per-view cost of the LiveData chain and snapshot listener of one cache entry.
+    static final int VIEW_WEIGHT_KB = 2;
+    // Summaries are small and fixed in shape, so they are counted along with their view.
+    static final int GAME_SUMMARY_WEIGHT_KB = 3;
+
+    // Fixed parts of a mapped game or user: the object, its dates, enums and Optionals.
+    private static final int GAME_BASE_BYTES = 320;
+    private static final int USER_PROFILE_BASE_BYTES = 360;
+    // A String object and its char array, before the characters themselves.
+    private static final int STRING_BASE_BYTES = 40;
+    private static final int LIST_BASE_BYTES = 32;
+    private static final int REFERENCE_BYTES = 4;
+
+    // Share of the heap limit given to the repo caches, as 1 / HEAP_FRACTION.
+    private static final int HEAP_FRACTION = 64;
+    private static final int DEFAULT_MEMORY_CLASS_MB = 64;
+    private static final long MIN_BUDGET_KB = 256;
+
+    private final long userProfilesKb;
+    private final long gamesKb;
+    private final long gameSummariesKb;
+    private final long viewsKb;
+
+    static CacheBudget forContext(Context context) {
+        ActivityManager activityManager =
+                (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        if (activityManager == null) {
+            return defaults();
+        }
+        long budgetKb = activityManager.getMemoryClass() * 1024L / HEAP_FRACTION;
+        if (activityManager.isLowRamDevice()) {
+            budgetKb /= 2;
+        }
+        return new CacheBudget(budgetKb);
+    }
+
+    static CacheBudget defaults() {
+        return new CacheBudget(DEFAULT_MEMORY_CLASS_MB * 1024L / HEAP_FRACTION);
+    }
+
+    private CacheBudget(long budgetKb) {
+        budgetKb = Math.max(budgetKb, MIN_BUDGET_KB);
+        userProfilesKb = budgetKb * 3 / 10;
+        gamesKb = budgetKb * 3 / 10;
+        gameSummariesKb = budgetKb / 10;
+        viewsKb = budgetKb - userProfilesKb - gamesKb - gameSummariesKb;
+    }
+
+    // Bytes of stored user profiles, as weighed by weightBytes(UserProfile).
+    long userProfileBytes() {
+        return userProfilesKb * 1024;
+    }
+
+    // Bytes of stored games, as weighed by weightBytes(Game).
+    long gameBytes() {
+        return gamesKb * 1024;
+    }
+
+    // Entries of the user and game caches each; the views are shared evenly between the two.
+    long views() {
+        return viewsKb / 2 / VIEW_WEIGHT_KB;
+    }
+
+    long gameSummaries() {
+        return gameSummariesKb / GAME_SUMMARY_WEIGHT_KB;
+    }
+
+    // Estimated heap kept alive by a mapped game, mostly its strings and participant list.
+    static int weightBytes(Game game) {
+        return GAME_BASE_BYTES
+                + stringBytes(game.getName())
+                + stringBytes(game.getPlaceName())
+                + stringBytes(game.getUid())
+                + stringBytes(game.getCreatorUid())
+                + stringBytes(game.getDescription())
+                + stringBytes(game.getGameBoardChannelUrl())
+                + listBytes(game.getParticipatingUids());
+    }
+
+    // Estimated heap kept alive by a mapped profile, mostly its strings and uid lists.
+    static int weightBytes(UserProfile profile) {
+        int bytes = USER_PROFILE_BASE_BYTES
+                + stringBytes(profile.getDisplayName())
+                + stringBytes(profile.getUid())
+                + stringBytes(profile.getBio())
+                // A parsed Uri keeps its string and, once read, its parts.
+                + 2 * stringBytes(profile.getDisplayPicUri().toString())
+                + LIST_BASE_BYTES + profile.getPreferences().size() * REFERENCE_BYTES
+                + listBytes(profile.getFriendUids())
+                + listBytes(profile.getSentFriendRequests())
+                + listBytes(profile.getReceivedFriendRequests());
+        for (List<String> uids : profile.getGames().values()) {
+            bytes += listBytes(uids);
+        }
+        return bytes;
+    }
+
+    private static int stringBytes(Optional<String> string) {
+        return string.isPresent() ? stringBytes(string.get()) : 0;
+    }
+
+    private static int stringBytes(String string) {
+        return STRING_BASE_BYTES + 2 * string.length();
+    }
+
+    private static int listBytes(Collection<String> strings) {
+        int bytes = LIST_BASE_BYTES;
+        for (String string : strings) {
+            bytes += REFERENCE_BYTES + stringBytes(string);
+        }
+        return bytes;
+    }
+
+    /**
+     * Evicts entries in response to {@link ComponentCallbacks2#onTrimMemory(int)}. Entries that
+     * are still observed are kept, since the UI would immediately load them again. Returns the
+     * number of entries removed.
+     */
+    static int trim(Cache<String, ? extends LiveData<?>> cache, int level) {
+        int keepOneIn;
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_MODERATE
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_CRITICAL) {
+            keepOneIn = 0;
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND
+                || level == ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            keepOneIn = 2;
+        } else {
+            cache.cleanUp();
+            return 0;
+        }
+
+        int removed = 0;
+        int unobserved = 0;
+        Iterator<? extends LiveData<?>> values = cache.asMap().values().iterator();
+        while (values.hasNext()) {
+            if (values.next().hasActiveObservers()) {
+                continue;
+            }
+            if (keepOneIn == 0 || unobserved++ % keepOneIn != 0) {
+                values.remove();
+                removed++;
+            }
+        }
+        cache.cleanUp();
+        return removed;
+    }
+}
@@ -0,0 +1,235 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import java9.util.function.Function;
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+import wjhj.orbital.sportsmatchfindingapp.maps.Country;
+import wjhj.orbital.sportsmatchfindingapp.user.Gender;
+
+/**
+ * Reads documents straight from {@link DocumentSnapshot#getData()} into data models, bypassing
+ * the reflection in {@code toObject}. Field names must be kept in step with the data models;
+ * anything unexpected falls back to {@code toObject} so a schema change degrades to the old
+ * speed instead of losing data. Also holds fast parsers for the ISO strings the models store.
+ */
+final class DocumentMappers {
+
+    private DocumentMappers() {
+    }
+
+    // The mapper for a data model class, or toObject for classes without a hand-written one.
+    @SuppressWarnings("unchecked")
+    static <T> Function<DocumentSnapshot, T> forClass(Class<T> valueType) {
+        if (valueType == GameDataModel.class) {
+            return snapshot -> (T) toGameDataModel(snapshot);
+        } else if (valueType == UserProfileDataModel.class) {
+            return snapshot -> (T) toUserProfileDataModel(snapshot);
+        } else {
+            return snapshot -> snapshot.toObject(valueType);
+        }
+    }
+
+    static <T> List<T> toObjects(QuerySnapshot snapshots, Class<T> valueType) {
+        Function<DocumentSnapshot, T> mapper = forClass(valueType);
+        List<T> results = new ArrayList<>(snapshots.size());
+        for (DocumentSnapshot snapshot : snapshots.getDocuments()) {
+            T value = mapper.apply(snapshot);
+            if (value != null) {
+                results.add(value);
+            }
+        }
+        return results;
+    }
+
+    @Nullable
+    static GameDataModel toGameDataModel(DocumentSnapshot snapshot) {
+        Map<String, Object> data = snapshot.getData();
+        if (data == null) {
+            return null;
+        }
+        try {
+            return toGameDataModel(data);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return snapshot.toObject(GameDataModel.class);
+        }
+    }
+
+    @Nullable
+    static UserProfileDataModel toUserProfileDataModel(DocumentSnapshot snapshot) {
+        Map<String, Object> data = snapshot.getData();
+        if (data == null) {
+            return null;
+        }
+        try {
+            return toUserProfileDataModel(data);
+        } catch (ClassCastException | IllegalArgumentException e) {
+            return snapshot.toObject(UserProfileDataModel.class);
+        }
+    }
+
+    static GameDataModel toGameDataModel(Map<String, Object> data) {
+        GameDataModel model = new GameDataModel();
+        model.setGameName((String) data.get("gameName"));
+        model.setDescription((String) data.get("description"));
+        model.setSport(toEnum(Sport.class, data.get("sport")));
+        model.setLocation((GeoPoint) data.get("location"));
+        model.setPlaceName((String) data.get("placeName"));
+        model.setMinPlayers(toInt(data.get("minPlayers")));
+        model.setMaxPlayers(toInt(data.get("maxPlayers")));
+        model.setSkillLevel(toEnum(Difficulty.class, data.get("skillLevel")));
+        model.setDate((String) data.get("date"));
+        model.setTime((String) data.get("time"));
+        model.setDuration((String) data.get("duration"));
+        model.setStartMillis(toLong(data.get(GameDataModel.START_MILLIS_FIELD)));
+        model.setEndMillis(toLong(data.get(GameDataModel.END_MILLIS_FIELD)));
+        model.setMinuteOfDay(toInt(data.get(GameDataModel.MINUTE_OF_DAY_FIELD)));
+        model.setTimeOfDay(toEnum(TimeOfDay.class, data.get(GameDataModel.TIME_OF_DAY_FIELD)));
+        model.setUid((String) data.get("uid"));
+        model.setCreatorUid((String) data.get("creatorUid"));
+        model.setGameBoardChannelUrl((String) data.get("gameBoardChannelUrl"));
+        model.setParticipatingUids(toStringList(data.get("participatingUids")));
+        model.setNameSubstrings(toStringList(data.get(GameDataModel.NAME_SUBSTRINGS_FIELD)));
+        return model;
+    }
+
+    static UserProfileDataModel toUserProfileDataModel(Map<String, Object> data) {
+        UserProfileDataModel model = new UserProfileDataModel();
+        model.setDisplayName((String) data.get("displayName"));
+        model.setGender(toEnum(Gender.class, data.get("gender")));
+        model.setBirthday((String) data.get("birthday"));
+        model.setCountry(toEnum(Country.class, data.get("country")));
+        model.setUid((String) data.get("uid"));
+        model.setBio((String) data.get("bio"));
+        model.setDisplayPicUri((String) data.get("displayPicUri"));
+        model.setPreferences(toEnumList(Sport.class, data.get("preferences")));
+        model.setFriendUids(toStringList(data.get("friendUids")));
+        model.setSentFriendRequests(toStringList(data.get("sentFriendRequests")));
+        model.setReceivedFriendRequests(toStringList(data.get("receivedFriendRequests")));
+        model.setGames(toGamesMap(data.get("games")));
+        return model;
+    }
+
+    // Accepts the yyyy-MM-dd strings written by LocalDate.toString().
+    static LocalDate parseDate(String text) {
+        if (text.length() == 10 && text.charAt(4) == '-' && text.charAt(7) == '-') {
+            return LocalDate.of(digits(text, 0, 4), digits(text, 5, 7), digits(text, 8, 10));
+        }
+        return LocalDate.parse(text);
+    }
+
+    // Accepts the HH:mm and HH:mm:ss strings written by LocalTime.toString().
+    static LocalTime parseTime(String text) {
+        if (text.length() == 5 && text.charAt(2) == ':') {
+            return LocalTime.of(digits(text, 0, 2), digits(text, 3, 5));
+        } else if (text.length() == 8 && text.charAt(2) == ':' && text.charAt(5) == ':') {
+            return LocalTime.of(digits(text, 0, 2), digits(text, 3, 5), digits(text, 6, 8));
+        }
+        return LocalTime.parse(text);
+    }
+
+    // Accepts the PTnHnM forms written by Duration.toString() for whole minutes.
+    static Duration parseDuration(String text) {
+        if (text.startsWith("PT")) {
+            long minutes = 0;
+            int value = 0;
+            boolean hasDigits = false;
+            for (int i = 2; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c >= '0' && c <= '9') {
+                    value = value * 10 + (c - '0');
+                    hasDigits = true;
+                } else if (c == 'H' && hasDigits) {
+                    minutes += value * 60L;
+                    value = 0;
+                    hasDigits = false;
+                } else if (c == 'M' && hasDigits) {
+                    minutes += value;
+                    value = 0;
+                    hasDigits = false;
+                } else {
+                    return Duration.parse(text);
+                }
+            }
+            if (!hasDigits) {
+                return Duration.ofMinutes(minutes);
+            }
+        }
+        return Duration.parse(text);
+    }
+
+    private static int digits(String text, int start, int end) {
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new IllegalArgumentException("Not a digit in " + text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : ((Number) value).intValue();
+    }
+
+    private static long toLong(Object value) {
+        return value == null ? 0 : ((Number) value).longValue();
+    }
+
+    private static <E extends Enum<E>> E toEnum(Class<E> type, Object value) {
+        return value == null ? null : Enum.valueOf(type, (String) value);
+    }
+
+    private static List<String> toStringList(Object value) {
+        if (value == null) {
+            return null;
+        }
+        List<?> raw = (List<?>) value;
+        List<String> result = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            result.add((String) item);
+        }
+        return result;
+    }
+
+    private static <E extends Enum<E>> List<E> toEnumList(Class<E> type, Object value) {
+        if (value == null) {
+            return null;
+        }
+        List<?> raw = (List<?>) value;
+        List<E> result = new ArrayList<>(raw.size());
+        for (Object item : raw) {
+            result.add(toEnum(type, item));
+        }
+        return result;
+    }
+
+    private static Map<String, List<String>> toGamesMap(Object value) {
+        if (value == null) {
+            return null;
+        }
+        Map<?, ?> raw = (Map<?, ?>) value;
+        Map<String, List<String>> result = new HashMap<>();
+        for (Map.Entry<?, ?> entry : raw.entrySet()) {
+            result.put((String) entry.getKey(), toStringList(entry.getValue()));
+        }
+        return result;
+    }
+}
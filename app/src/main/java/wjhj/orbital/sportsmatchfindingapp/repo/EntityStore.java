@@ -0,0 +1,217 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import java9.util.function.Consumer;
+import java9.util.function.Function;
+import java9.util.function.ToIntFunction;
+
+/**
+ * One shared instance of each entity the repo has read, whichever document listener, query or
+ * batch read it came from. Every accepted change is stamped with the next value of a store-wide
+ * clock, so a one-shot read that started before a change cannot undo it when it completes, and
+ * an unchanged value keeps the instance already handed out.
+ *
+ * <p>Once the estimated weight of the stored values passes {@code maxWeight}, the least recently
+ * used entries are dropped, except those that are observed or held by a cached view (see
+ * {@link #hold}). Dropped ids are passed to {@code onDrop}, e.g. to keep indexes over the
+ * stored values the same size. Must be used from the main thread.
+ */
+class EntityStore<T> {
+    private final Function<T, String> idOf;
+    private final ToIntFunction<T> weigher;
+    private final long maxWeight;
+    private final Consumer<String> onDrop;
+    // In access order, so the eldest entry is the least recently used.
+    private final Map<String, Entry<T>> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long clock;
+    private long weight;
+
+    EntityStore(Function<T, String> idOf, ToIntFunction<T> weigher, long maxWeight,
+                Consumer<String> onDrop) {
+        this.idOf = idOf;
+        this.weigher = weigher;
+        this.maxWeight = maxWeight;
+        this.onDrop = onDrop;
+    }
+
+    // The current clock value, to be passed back with the results of a read started now.
+    long version() {
+        return clock;
+    }
+
+    // A value from a listener or a read that has just completed. Returns the stored instance.
+    T put(T value) {
+        return put(value, clock);
+    }
+
+    /**
+     * A value from a read started at {@code readVersion}. It is dropped if the entity changed
+     * after that, since the change came from a read at least as recent. Returns the stored
+     * instance.
+     */
+    T put(T value, long readVersion) {
+        String id = idOf.apply(value);
+        Entry<T> entry = entryFor(id);
+        if (entry.value != null && (entry.version > readVersion || entry.value.equals(value))) {
+            return entry.value;
+        }
+        set(entry, value, ++clock);
+        trim(id);
+        return value;
+    }
+
+    // A copy kept on the device, stored only until the server has been heard from.
+    T putIfAbsent(T value) {
+        String id = idOf.apply(value);
+        Entry<T> entry = entryFor(id);
+        if (entry.value != null) {
+            return entry.value;
+        }
+        // Version 0 lets any server read replace it.
+        set(entry, value, 0);
+        trim(id);
+        return value;
+    }
+
+    // Emits the stored instance now if there is one, and every later change to it.
+    LiveData<T> get(String id) {
+        return entryFor(id).liveData;
+    }
+
+    /**
+     * Like {@link #get}, for a view that keeps the LiveData while unobserved, such as a cache
+     * entry. The entry is kept until {@link #release} so that the view stays connected to it.
+     */
+    LiveData<T> hold(String id) {
+        Entry<T> entry = entryFor(id);
+        entry.held = true;
+        return entry.liveData;
+    }
+
+    // The view holding the entry is gone. The entry is dropped now unless it is still observed.
+    void release(String id) {
+        Entry<T> entry = entries.get(id);
+        if (entry != null) {
+            entry.held = false;
+            if (!entry.liveData.hasObservers()) {
+                entries.remove(id);
+                dropped(id, entry);
+            }
+        }
+    }
+
+    // Drops every entry that is neither observed nor held. Returns the number dropped.
+    int trimUnused() {
+        int removed = 0;
+        Iterator<Map.Entry<String, Entry<T>>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<String, Entry<T>> next = iterator.next();
+            Entry<T> entry = next.getValue();
+            if (!entry.held && !entry.liveData.hasObservers()) {
+                iterator.remove();
+                dropped(next.getKey(), entry);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    long weight() {
+        return weight;
+    }
+
+    @Nullable
+    T peek(String id) {
+        Entry<T> entry = entries.get(id);
+        return entry == null ? null : entry.value;
+    }
+
+    // Forgets the value. Observers keep the last one they saw and get the next one stored.
+    void remove(String id) {
+        Entry<T> entry = entries.get(id);
+        if (entry != null) {
+            forget(entry);
+        }
+    }
+
+    void clear() {
+        Iterator<Entry<T>> iterator = entries.values().iterator();
+        while (iterator.hasNext()) {
+            Entry<T> entry = iterator.next();
+            if (entry.held || entry.liveData.hasObservers()) {
+                forget(entry);
+            } else {
+                iterator.remove();
+            }
+        }
+        weight = 0;
+    }
+
+    private void set(Entry<T> entry, T value, long version) {
+        int valueWeight = weigher.applyAsInt(value);
+        weight += valueWeight - entry.weight;
+        entry.weight = valueWeight;
+        entry.set(value, version);
+    }
+
+    private void forget(Entry<T> entry) {
+        weight -= entry.weight;
+        entry.weight = 0;
+        entry.value = null;
+        entry.version = 0;
+    }
+
+    // Drops the least recently used entries over the weight limit, other than the one just set.
+    private void trim(String keep) {
+        Iterator<Map.Entry<String, Entry<T>>> iterator = entries.entrySet().iterator();
+        while (weight > maxWeight && iterator.hasNext()) {
+            Map.Entry<String, Entry<T>> next = iterator.next();
+            Entry<T> entry = next.getValue();
+            if (!entry.held && !entry.liveData.hasObservers() && !next.getKey().equals(keep)) {
+                iterator.remove();
+                dropped(next.getKey(), entry);
+            }
+        }
+    }
+
+    private void dropped(String id, Entry<T> entry) {
+        weight -= entry.weight;
+        if (entry.value != null) {
+            onDrop.accept(id);
+        }
+    }
+
+    private Entry<T> entryFor(String id) {
+        Entry<T> entry = entries.get(id);
+        if (entry == null) {
+            entry = new Entry<>();
+            entries.put(id, entry);
+        }
+        return entry;
+    }
+
+    private static class Entry<T> {
+        final MutableLiveData<T> liveData = new MutableLiveData<>();
+        T value;
+        long version;
+        int weight;
+        boolean held;
+
+        void set(T value, long version) {
+            this.value = value;
+            this.version = version;
+            liveData.setValue(value);
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.List;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+
+/**
+ * LiveData backed by a Firestore snapshot listener that only runs while the LiveData is observed.
+ * The listener is attached in {@link #onActive()} and removed a short grace period after the
+ * last observer goes away, so configuration changes do not cause a detach and re-read. Attached
+ * listeners are counted by {@link SnapshotListenerRegistry}, which enforces a global cap and
+ * suspends every listener while the app is in the background.
+ */
+abstract class FirestoreLiveData<T> extends LiveData<T> {
+    static final long DETACH_GRACE_MILLIS = 10_000;
+
+    private static final Handler handler = new Handler(Looper.getMainLooper());
+
+    private final Runnable detachRunnable = this::detach;
+    private ListenerRegistration registration;
+
+    static <T> FirestoreLiveData<T> of(DocumentReference docRef, Class<T> valueType) {
+        return new DocumentLiveData<>(docRef, valueType, null);
+    }
+
+    // onMissing runs on the main thread whenever the document turns out not to exist.
+    static <T> FirestoreLiveData<T> of(DocumentReference docRef, Class<T> valueType, Runnable onMissing) {
+        return new DocumentLiveData<>(docRef, valueType, onMissing);
+    }
+
+    static <T> FirestoreLiveData<List<T>> of(Query query, Class<T> valueType) {
+        return new QueryLiveData<>(query, valueType);
+    }
+
+    // Registers the snapshot listener that feeds this LiveData.
+    abstract ListenerRegistration attach();
+
+    // Single read used instead of a listener when the listener cap has been reached.
+    abstract void fetchOnce();
+
+    // Snapshot listeners registered by attach(), counted against the registry's cap.
+    int listenerCount() {
+        return 1;
+    }
+
+    @Override
+    protected void onActive() {
+        handler.removeCallbacks(detachRunnable);
+        attachIfNeeded();
+    }
+
+    @Override
+    protected void onInactive() {
+        handler.postDelayed(detachRunnable, DETACH_GRACE_MILLIS);
+    }
+
+    void attachIfNeeded() {
+        SnapshotListenerRegistry registry = SnapshotListenerRegistry.getInstance();
+        if (registration != null || registry.suspendIfInBackground(this)) {
+            return;
+        }
+        if (registry.reserve(this)) {
+            registration = attach();
+        } else {
+            fetchOnce();
+        }
+    }
+
+    // Removes the listener immediately. It is attached again the next time the LiveData becomes active.
+    void detach() {
+        handler.removeCallbacks(detachRunnable);
+        if (registration != null) {
+            registration.remove();
+            registration = null;
+            SnapshotListenerRegistry.getInstance().release(this);
+        }
+    }
+
+    private static class DocumentLiveData<T> extends FirestoreLiveData<T> {
+        private final DocumentReference docRef;
+        private final Function<DocumentSnapshot, T> mapper;
+        private final Runnable onMissing;
+
+        DocumentLiveData(DocumentReference docRef, Class<T> valueType, Runnable onMissing) {
+            this.docRef = docRef;
+            this.mapper = DocumentMappers.forClass(valueType);
+            this.onMissing = onMissing;
+        }
+
+        @Override
+        ListenerRegistration attach() {
+            return docRef.addSnapshotListener((value, err) -> {
+                if (err != null) {
+                    Timber.d(err, "database snapshot error");
+                } else {
+                    onSnapshot(value);
+                }
+            });
+        }
+
+        @Override
+        void fetchOnce() {
+            docRef.get()
+                    .addOnSuccessListener(this::onSnapshot)
+                    .addOnFailureListener(e -> Timber.d(e, "database read error"));
+        }
+
+        private void onSnapshot(DocumentSnapshot value) {
+            if (value != null && value.exists()) {
+                try {
+                    postValue(mapper.apply(value));
+                } catch (RuntimeException e) {
+                    Timber.d(e, "deserialization error");
+                }
+            } else {
+                Timber.d("document with id %s does not exist", docRef.getId());
+                if (onMissing != null) {
+                    onMissing.run();
+                }
+            }
+        }
+    }
+
+    private static class QueryLiveData<T> extends FirestoreLiveData<List<T>> {
+        private final Query query;
+        private final Class<T> valueType;
+
+        QueryLiveData(Query query, Class<T> valueType) {
+            this.query = query;
+            this.valueType = valueType;
+        }
+
+        @Override
+        ListenerRegistration attach() {
+            return query.addSnapshotListener((value, err) -> {
+                if (err != null) {
+                    Timber.d(err, "database snapshot error");
+                } else {
+                    onSnapshot(value);
+                }
+            });
+        }
+
+        @Override
+        void fetchOnce() {
+            query.get()
+                    .addOnSuccessListener(this::onSnapshot)
+                    .addOnFailureListener(e -> Timber.d(e, "database read error"));
+        }
+
+        private void onSnapshot(QuerySnapshot value) {
+            if (value != null) {
+                postValue(DocumentMappers.toObjects(value, valueType));
+            }
+        }
+    }
+}
@@ -1,15 +1,35 @@
 package wjhj.orbital.sportsmatchfindingapp.repo;
 
+import androidx.room.Ignore;
+
 import com.google.firebase.firestore.GeoPoint;
 
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+import org.threeten.bp.ZoneId;
+
 import java.util.List;
 
 import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
 import wjhj.orbital.sportsmatchfindingapp.game.Game;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
 
+/**
+ * Firestore and local store representation of a game. Besides the ISO date, time and duration
+ * strings, the start is also stored as epoch millis, minute of the day and time of day bucket so
+ * that searches can use a single equality or range clause. Epoch millis are computed in the
+ * creating device's time zone; the strings remain the source of truth for display.
+ */
 @SuppressWarnings("WeakerAccess")
 class GameDataModel {
+    static final String START_MILLIS_FIELD = "startMillis";
+    static final String END_MILLIS_FIELD = "endMillis";
+    static final String MINUTE_OF_DAY_FIELD = "minuteOfDay";
+    static final String TIME_OF_DAY_FIELD = "timeOfDay";
+    static final String NAME_SUBSTRINGS_FIELD = "nameSubstrings";
+
     private String gameName;
     private String description;
     private Sport sport;
@@ -21,17 +41,26 @@ class GameDataModel {
     private String date;
     private String time;
     private String duration;
+    private long startMillis;
+    private long endMillis;
+    private int minuteOfDay;
+    private TimeOfDay timeOfDay;
     private String uid;
     private String creatorUid;
     private String gameBoardChannelUrl;
     private List<String> participatingUids;
+    // Only needed by server-side name search, so not kept in the local store.
+    @Ignore
+    private List<String> nameSubstrings;
 
     // Mandatory no args constructor
     public GameDataModel() {
     }
 
+    @Ignore
     GameDataModel(Game game) {
         gameName = game.getGameName();
+        nameSubstrings = GameNameIndex.substrings(gameName);
         description = game.getDescription().orNull();
         sport = game.getSport();
         location = game.getLocation();
@@ -39,9 +68,7 @@ class GameDataModel {
         minPlayers = game.getMinPlayers();
         maxPlayers = game.getMaxPlayers();
         skillLevel = game.getSkillLevel();
-        date = game.getDate().toString();
-        time = game.getTime().toString();
-        duration = game.getDuration().toString();
+        setTimes(game.getDate(), game.getTime(), game.getDuration());
         uid = game.getUid();
         creatorUid = game.getCreatorUid();
         gameBoardChannelUrl = game.getGameBoardChannelUrl().orNull();
@@ -92,6 +119,22 @@ class GameDataModel {
         return duration;
     }
 
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public int getMinuteOfDay() {
+        return minuteOfDay;
+    }
+
+    public TimeOfDay getTimeOfDay() {
+        return timeOfDay;
+    }
+
     public String getUid() {
         return uid;
     }
@@ -108,5 +151,110 @@ class GameDataModel {
         return participatingUids;
     }
 
-}
+    public List<String> getNameSubstrings() {
+        return nameSubstrings;
+    }
+
+    public void setGameName(String gameName) {
+        this.gameName = gameName;
+    }
 
+    public void setDescription(String description) {
+        this.description = description;
+    }
+
+    public void setSport(Sport sport) {
+        this.sport = sport;
+    }
+
+    public void setLocation(GeoPoint location) {
+        this.location = location;
+    }
+
+    public void setPlaceName(String placeName) {
+        this.placeName = placeName;
+    }
+
+    public void setMinPlayers(int minPlayers) {
+        this.minPlayers = minPlayers;
+    }
+
+    public void setMaxPlayers(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+
+    public void setSkillLevel(Difficulty skillLevel) {
+        this.skillLevel = skillLevel;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    public void setTime(String time) {
+        this.time = time;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    public void setStartMillis(long startMillis) {
+        this.startMillis = startMillis;
+    }
+
+    public void setEndMillis(long endMillis) {
+        this.endMillis = endMillis;
+    }
+
+    public void setMinuteOfDay(int minuteOfDay) {
+        this.minuteOfDay = minuteOfDay;
+    }
+
+    public void setTimeOfDay(TimeOfDay timeOfDay) {
+        this.timeOfDay = timeOfDay;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public void setCreatorUid(String creatorUid) {
+        this.creatorUid = creatorUid;
+    }
+
+    public void setGameBoardChannelUrl(String gameBoardChannelUrl) {
+        this.gameBoardChannelUrl = gameBoardChannelUrl;
+    }
+
+    public void setParticipatingUids(List<String> participatingUids) {
+        this.participatingUids = participatingUids;
+    }
+
+    public void setNameSubstrings(List<String> nameSubstrings) {
+        this.nameSubstrings = nameSubstrings;
+    }
+
+    // Documents written before the numeric time fields were added have no bucket.
+    boolean hasNumericTimes() {
+        return timeOfDay != null;
+    }
+
+    // In the device's zone; GameQueryPlanner cuts date ranges with this too.
+    static long toEpochMillis(LocalDate date, LocalTime time) {
+        return date.atTime(time)
+                .atZone(ZoneId.systemDefault())
+                .toInstant()
+                .toEpochMilli();
+    }
+
+    private void setTimes(LocalDate date, LocalTime time, Duration duration) {
+        this.date = date.toString();
+        this.time = time.toString();
+        this.duration = duration.toString();
+        startMillis = toEpochMillis(date, time);
+        endMillis = startMillis + duration.toMillis();
+        minuteOfDay = time.getHour() * 60 + time.getMinute();
+        timeOfDay = TimeOfDay.getTimeOfDay(time);
+    }
+}
@@ -0,0 +1,31 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.NonNull;
+import androidx.room.Embedded;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// Room row wrapping the same data model that is stored in Firestore.
+@SuppressWarnings("WeakerAccess")
+@Entity(tableName = "games")
+class GameEntity {
+    @PrimaryKey
+    @NonNull
+    public String uid;
+
+    public long cachedAt;
+
+    @Embedded(prefix = "data_")
+    public GameDataModel data;
+
+    // Mandatory no args constructor
+    public GameEntity() {
+        uid = "";
+    }
+
+    GameEntity(@NonNull String uid, GameDataModel data) {
+        this.uid = uid;
+        this.data = data;
+        this.cachedAt = System.currentTimeMillis();
+    }
+}
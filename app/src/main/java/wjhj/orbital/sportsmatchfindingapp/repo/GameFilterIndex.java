@@ -0,0 +1,221 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+
+/**
+ * In-memory index over every cached game. Each game is packed into a single int holding one bit
+ * for its sport, one for its skill level and one for its time of day, so a search filter is
+ * evaluated with a few bitwise ANDs and no allocation per game.
+ */
+class GameFilterIndex {
+    private static final int INITIAL_CAPACITY = 256;
+
+    private static final int SPORT_SHIFT = 0;
+    private static final int SKILL_LEVEL_SHIFT = SPORT_SHIFT + Sport.values().length;
+    private static final int TIME_OF_DAY_SHIFT = SKILL_LEVEL_SHIFT + Difficulty.values().length;
+
+    private static final int ALL_SKILL_LEVELS = allBits(SKILL_LEVEL_SHIFT, Difficulty.values().length);
+    private static final int ALL_TIMES_OF_DAY = allBits(TIME_OF_DAY_SHIFT, TimeOfDay.values().length);
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private Game[] games = new Game[INITIAL_CAPACITY];
+    private int[] packed = new int[INITIAL_CAPACITY];
+    private int[] minuteOfDay = new int[INITIAL_CAPACITY];
+    private long[] epochDay = new long[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int size;
+
+    synchronized void put(Game game) {
+        Integer slot = slots.get(game.getUid());
+        if (slot == null) {
+            ensureCapacity(size + 1);
+            slot = size++;
+            slots.put(game.getUid(), slot);
+        }
+        games[slot] = game;
+        packed[slot] = pack(game);
+        minuteOfDay[slot] = game.getTime().getHour() * 60 + game.getTime().getMinute();
+        epochDay[slot] = game.getDate().toEpochDay();
+        names[slot] = normalize(game.getGameName());
+    }
+
+    synchronized void putAll(Collection<Game> newGames) {
+        for (Game game : newGames) {
+            put(game);
+        }
+    }
+
+    // Games already indexed are kept, e.g. when they came from the server first.
+    synchronized void putAllIfAbsent(Collection<Game> newGames) {
+        for (Game game : newGames) {
+            if (!slots.containsKey(game.getUid())) {
+                put(game);
+            }
+        }
+    }
+
+    synchronized void remove(String uid) {
+        Integer slot = slots.remove(uid);
+        if (slot == null) {
+            return;
+        }
+        int last = --size;
+        if (slot != last) {
+            games[slot] = games[last];
+            packed[slot] = packed[last];
+            minuteOfDay[slot] = minuteOfDay[last];
+            epochDay[slot] = epochDay[last];
+            names[slot] = names[last];
+            slots.put(games[slot].getUid(), slot);
+        }
+        games[last] = null;
+        names[last] = null;
+    }
+
+    synchronized void clear() {
+        slots.clear();
+        Arrays.fill(games, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    // Every indexed game matching the mask, in index order.
+    synchronized List<Game> search(FilterMask mask) {
+        List<Game> results = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            if (mask.matches(packed[i], minuteOfDay[i], epochDay[i], names[i])) {
+                results.add(games[i]);
+            }
+        }
+        return results;
+    }
+
+    static int pack(Game game) {
+        TimeOfDay timeOfDay = TimeOfDay.getTimeOfDay(game.getTime());
+        return (1 << (SPORT_SHIFT + game.getSport().ordinal()))
+                | (1 << (SKILL_LEVEL_SHIFT + game.getSkillLevel().ordinal()))
+                | (1 << (TIME_OF_DAY_SHIFT + timeOfDay.ordinal()));
+    }
+
+    // Same normalization as the server-side name index, so both agree on what matches.
+    static String normalize(String name) {
+        return GameNameIndex.normalize(name);
+    }
+
+    private static int allBits(int shift, int count) {
+        return ((1 << count) - 1) << shift;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > games.length) {
+            int newLength = Math.max(capacity, games.length * 2);
+            games = Arrays.copyOf(games, newLength);
+            packed = Arrays.copyOf(packed, newLength);
+            minuteOfDay = Arrays.copyOf(minuteOfDay, newLength);
+            epochDay = Arrays.copyOf(epochDay, newLength);
+            names = Arrays.copyOf(names, newLength);
+        }
+    }
+
+    /**
+     * A {@link GameSearchFilter} compiled into bit masks. Empty skill level and time of day
+     * selections match everything; an empty sport selection matches nothing.
+     */
+    static final class FilterMask {
+        private final int sports;
+        private final int skillLevels;
+        private final int timesOfDay;
+        private final int fromMinute;
+        private final int toMinute;
+        private final long fromDay;
+        private final long toDay;
+        private final String name;
+
+        private FilterMask(int sports, int skillLevels, int timesOfDay, int fromMinute, int toMinute,
+                           long fromDay, long toDay, String name) {
+            this.sports = sports;
+            this.skillLevels = skillLevels;
+            this.timesOfDay = timesOfDay;
+            this.fromMinute = fromMinute;
+            this.toMinute = toMinute;
+            this.fromDay = fromDay;
+            this.toDay = toDay;
+            this.name = name;
+        }
+
+        static FilterMask of(GameSearchFilter filter) {
+            int sports = 0;
+            if (filter.getSportQuery() != null) {
+                for (Sport sport : filter.getSportQuery()) {
+                    sports |= 1 << (SPORT_SHIFT + sport.ordinal());
+                }
+            }
+
+            int skillLevels = 0;
+            if (filter.getSkillLevelQuery() != null) {
+                for (Difficulty skillLevel : filter.getSkillLevelQuery()) {
+                    skillLevels |= 1 << (SKILL_LEVEL_SHIFT + skillLevel.ordinal());
+                }
+            }
+            if (skillLevels == 0) {
+                skillLevels = ALL_SKILL_LEVELS;
+            }
+
+            int timesOfDay = 0;
+            if (filter.getTimeOfDayQuery() != null) {
+                for (TimeOfDay timeOfDay : filter.getTimeOfDayQuery()) {
+                    timesOfDay |= 1 << (TIME_OF_DAY_SHIFT + timeOfDay.ordinal());
+                }
+            }
+            if (timesOfDay == 0) {
+                timesOfDay = ALL_TIMES_OF_DAY;
+            }
+
+            long fromDay = Long.MIN_VALUE;
+            long toDay = Long.MAX_VALUE;
+            if (filter.hasDateRangeQuery()) {
+                fromDay = filter.getStartDateQuery().toEpochDay();
+                toDay = filter.getEndDateQuery().toEpochDay();
+            }
+
+            return new FilterMask(sports, skillLevels, timesOfDay, 0, 24 * 60 - 1, fromDay, toDay,
+                    normalize(filter.getNameQuery()));
+        }
+
+        // Narrows the mask to games starting within [fromMinute, toMinute] of the day.
+        FilterMask withMinutes(int fromMinute, int toMinute) {
+            return new FilterMask(sports, skillLevels, timesOfDay, fromMinute, toMinute, fromDay, toDay,
+                    name);
+        }
+
+        // For games that are not in the index, e.g. fresh server results.
+        boolean matches(Game game) {
+            int minute = game.getTime().getHour() * 60 + game.getTime().getMinute();
+            String gameName = name.isEmpty() ? "" : normalize(game.getGameName());
+            return matches(pack(game), minute, game.getDate().toEpochDay(), gameName);
+        }
+
+        private boolean matches(int packedGame, int minute, long day, String normalizedName) {
+            return (packedGame & sports) != 0
+                    && (packedGame & skillLevels) != 0
+                    && (packedGame & timesOfDay) != 0
+                    && minute >= fromMinute && minute <= toMinute
+                    && day >= fromDay && day <= toDay
+                    && (name.isEmpty() || normalizedName.contains(name));
+        }
+    }
+}
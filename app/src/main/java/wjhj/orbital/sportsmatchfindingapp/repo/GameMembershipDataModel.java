@@ -0,0 +1,39 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import wjhj.orbital.sportsmatchfindingapp.game.GameStatus;
+
+// Stored at Users/{uid}/gameMemberships/{gameUid}, one document per game the user takes part in.
+@SuppressWarnings("WeakerAccess")
+class GameMembershipDataModel {
+    static final String STATUS_FIELD = "status";
+    static final String START_TIME_FIELD = "startTime";
+
+    private String status;
+    private long startTime;
+
+    // Mandatory no args constructor
+    public GameMembershipDataModel() {
+    }
+
+    GameMembershipDataModel(GameStatus status, long startTime) {
+        this.status = status.toString();
+        this.startTime = startTime;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    // Start of the game in epoch milliseconds, used to page upcoming and past games.
+    public long getStartTime() {
+        return startTime;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public void setStartTime(long startTime) {
+        this.startTime = startTime;
+    }
+}
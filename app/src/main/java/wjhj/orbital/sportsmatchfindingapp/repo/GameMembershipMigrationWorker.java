@@ -0,0 +1,64 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.content.Context;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.OneTimeWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.concurrent.ExecutionException;
+
+import timber.log.Timber;
+
+/**
+ * Copies the signed in user's embedded games map to the gameMemberships subcollection, retrying
+ * until it succeeds. Scheduled on every start; once a user is migrated it only reads the flag.
+ */
+public class GameMembershipMigrationWorker extends Worker {
+    private static final String WORK_NAME = "migrate-game-memberships";
+
+    public GameMembershipMigrationWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        OneTimeWorkRequest request = new OneTimeWorkRequest.Builder(GameMembershipMigrationWorker.class)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniqueWork(WORK_NAME, ExistingWorkPolicy.KEEP, request);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String userUid = FirebaseAuth.getInstance().getUid();
+        if (userUid == null) {
+            return Result.success();
+        }
+
+        try {
+            int migrated = Tasks.await(SportalRepo.getInstance().migrateGameMemberships(userUid));
+            Timber.d("Migrated %d game memberships of %s", migrated, userUid);
+            return Result.success();
+        } catch (ExecutionException e) {
+            Timber.d(e, "Migrating game memberships failed");
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Timber.d(e, "Migrating game memberships was interrupted");
+            return Result.retry();
+        }
+    }
+}
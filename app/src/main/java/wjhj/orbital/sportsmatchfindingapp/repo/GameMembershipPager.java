@@ -0,0 +1,160 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+
+import com.google.firebase.firestore.DocumentReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+
+import org.threeten.bp.LocalDateTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
+
+/**
+ * Pages through a user's game memberships in query order. Each page is one limited query
+ * resumed after the last document of the previous page; the game summaries are loaded
+ * through the repo's cache and emitted in membership order. Users whose memberships have not
+ * been migrated yet are read from the games map in their user document instead, in one page
+ * ordered by start time. Must be used from the main thread.
+ */
+public class GameMembershipPager {
+    static final int PAGE_SIZE = 20;
+    static final String MIGRATED_FIELD = "gameMembershipsMigrated";
+
+    private final DocumentReference userDoc;
+    private final Query query;
+    private final boolean upcoming;
+    private final Function<String, LiveData<GameSummary>> gameLoader;
+    private final MediatorLiveData<List<GameSummary>> games = new MediatorLiveData<>();
+    private final Set<String> gameUids = new LinkedHashSet<>();
+    private final Map<String, GameSummary> loaded = new HashMap<>();
+
+    private DocumentSnapshot lastVisible;
+    private boolean loading;
+    private boolean exhausted;
+    // Null until the user document has been read.
+    private Boolean migrated;
+    private LocalDateTime now;
+
+    /**
+     * @param upcoming whether the query selects games starting from now on, soonest first, or
+     *                 games already started, most recent first
+     */
+    GameMembershipPager(DocumentReference userDoc, Query query, boolean upcoming,
+                        Function<String, LiveData<GameSummary>> gameLoader) {
+        this.userDoc = userDoc;
+        this.query = query;
+        this.upcoming = upcoming;
+        this.gameLoader = gameLoader;
+    }
+
+    public LiveData<List<GameSummary>> getGames() {
+        return games;
+    }
+
+    public boolean hasMore() {
+        return !exhausted;
+    }
+
+    // Does nothing while a page is loading or once every membership has been read.
+    public void loadNextPage() {
+        if (loading || exhausted) {
+            return;
+        }
+        loading = true;
+
+        if (migrated == null) {
+            userDoc.get()
+                    .addOnSuccessListener(snapshot -> {
+                        loading = false;
+                        migrated = Boolean.TRUE.equals(snapshot.getBoolean(MIGRATED_FIELD));
+                        if (migrated) {
+                            loadNextPage();
+                        } else {
+                            loadFromGamesMap(DocumentMappers.toUserProfileDataModel(snapshot));
+                        }
+                    })
+                    .addOnFailureListener(e -> {
+                        loading = false;
+                        Timber.d(e, "Reading %s failed", userDoc.getPath());
+                    });
+            return;
+        }
+
+        Query page = query.limit(PAGE_SIZE);
+        if (lastVisible != null) {
+            page = page.startAfter(lastVisible);
+        }
+        page.get()
+                .addOnSuccessListener(snapshots -> {
+                    loading = false;
+                    List<DocumentSnapshot> documents = snapshots.getDocuments();
+                    exhausted = documents.size() < PAGE_SIZE;
+                    if (!documents.isEmpty()) {
+                        lastVisible = documents.get(documents.size() - 1);
+                    }
+                    for (DocumentSnapshot document : documents) {
+                        follow(document.getId());
+                    }
+                    emit();
+                })
+                .addOnFailureListener(e -> {
+                    loading = false;
+                    Timber.d(e, "Game membership page failed");
+                });
+    }
+
+    // The games map holds every game of the user, so it is a single page.
+    private void loadFromGamesMap(@Nullable UserProfileDataModel user) {
+        exhausted = true;
+        now = LocalDateTime.now();
+        if (user != null && user.getGames() != null) {
+            for (List<String> statusGames : user.getGames().values()) {
+                if (statusGames != null) {
+                    for (String gameUid : statusGames) {
+                        follow(gameUid);
+                    }
+                }
+            }
+        }
+        emit();
+    }
+
+    private void follow(String gameUid) {
+        if (gameUids.add(gameUid)) {
+            games.addSource(gameLoader.apply(gameUid), game -> {
+                loaded.put(gameUid, game);
+                emit();
+            });
+        }
+    }
+
+    private void emit() {
+        List<GameSummary> result = new ArrayList<>();
+        for (String gameUid : gameUids) {
+            GameSummary game = loaded.get(gameUid);
+            if (game != null && (now == null || upcoming != game.getStartDateTime().isBefore(now))) {
+                result.add(game);
+            }
+        }
+        if (now != null) {
+            // Games map order is arbitrary; sort as the membership query would.
+            Collections.sort(result, (game1, game2) -> upcoming
+                    ? game1.getStartDateTime().compareTo(game2.getStartDateTime())
+                    : game2.getStartDateTime().compareTo(game1.getStartDateTime()));
+        }
+        games.setValue(result);
+    }
+}
@@ -0,0 +1,82 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Builds the nameSubstrings field that backs game name search. Every word of the normalized name
+ * contributes all of its substrings between {@link #MIN_GRAM} and {@link #MAX_GRAM} characters,
+ * so a query word is matched by a single array-contains on its first {@link #MAX_GRAM}
+ * characters. Only the first {@link #MAX_INDEXED_LENGTH} characters of a name are indexed, which
+ * keeps every document under {@link #MAX_SUBSTRINGS} entries. Existing games are indexed by
+ * scripts/backfill-game-names.js, which must follow the same rules.
+ */
+final class GameNameIndex {
+    static final int MIN_GRAM = 4;
+    static final int MAX_GRAM = 6;
+    static final int MAX_INDEXED_LENGTH = 64;
+    static final int MAX_SUBSTRINGS = 200;
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private GameNameIndex() {
+    }
+
+    // Lower case, without accents, with runs of punctuation and spaces collapsed to one space.
+    static String normalize(@Nullable String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        String stripped = MARKS.matcher(decomposed).replaceAll("");
+        return SEPARATORS.matcher(stripped.toLowerCase(Locale.ROOT)).replaceAll(" ").trim();
+    }
+
+    static List<String> substrings(@Nullable String name) {
+        String normalized = normalize(name);
+        if (normalized.length() > MAX_INDEXED_LENGTH) {
+            normalized = normalized.substring(0, MAX_INDEXED_LENGTH);
+        }
+
+        Set<String> grams = new LinkedHashSet<>();
+        for (String word : normalized.split(" ")) {
+            for (int start = 0; start + MIN_GRAM <= word.length(); start++) {
+                int maxEnd = Math.min(word.length(), start + MAX_GRAM);
+                for (int end = start + MIN_GRAM; end <= maxEnd; end++) {
+                    if (grams.size() == MAX_SUBSTRINGS) {
+                        return new ArrayList<>(grams);
+                    }
+                    grams.add(word.substring(start, end));
+                }
+            }
+        }
+        return new ArrayList<>(grams);
+    }
+
+    /**
+     * The single value to look up in nameSubstrings for a search, or null if no query word is
+     * long enough to be indexed. The longest word is used since it is the most selective; the
+     * full query is still checked on the client.
+     */
+    @Nullable
+    static String queryTerm(@Nullable String query) {
+        String longest = "";
+        for (String word : normalize(query).split(" ")) {
+            if (word.length() > longest.length()) {
+                longest = word;
+            }
+        }
+        if (longest.length() < MIN_GRAM) {
+            return null;
+        }
+        return longest.substring(0, Math.min(longest.length(), MAX_GRAM));
+    }
+}
@@ -0,0 +1,182 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.FieldPath;
+import com.google.firebase.firestore.Query;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+
+/**
+ * A single index-backed Firestore query produced by {@link GameQueryPlanner}. An empty sport,
+ * skill level or time of day list means the field is not constrained on the server. The only
+ * range clause is on the start time, or on the geohash for plans made by {@link #forGeo}, so any
+ * combination needs at most one composite index.
+ */
+class GameQueryPlan {
+    static final String SPORT_FIELD = "sport";
+    static final String SKILL_LEVEL_FIELD = "skillLevel";
+    static final String NAME_FIELD = GameDataModel.NAME_SUBSTRINGS_FIELD;
+    static final String TIME_OF_DAY_FIELD = GameDataModel.TIME_OF_DAY_FIELD;
+    static final String START_FIELD = GameDataModel.START_MILLIS_FIELD;
+
+    private final List<Sport> sports;
+    private final List<Difficulty> skillLevels;
+    private final List<TimeOfDay> timesOfDay;
+    @Nullable private final Long startMillis;
+    @Nullable private final Long endMillis;
+    @Nullable private final String nameTerm;
+    private final boolean geo;
+
+    /**
+     * @param startMillis inclusive lower bound of the start time, or null for no date range
+     * @param endMillis   exclusive upper bound of the start time, or null for no date range
+     */
+    GameQueryPlan(List<Sport> sports, List<Difficulty> skillLevels, List<TimeOfDay> timesOfDay,
+                  @Nullable Long startMillis, @Nullable Long endMillis, @Nullable String nameTerm) {
+        int inClauses = (sports.size() > 1 ? 1 : 0) + (skillLevels.size() > 1 ? 1 : 0)
+                + (timesOfDay.size() > 1 ? 1 : 0);
+        if (inClauses > 1) {
+            throw new IllegalArgumentException("Only one field can use an in clause");
+        }
+        this.sports = Collections.unmodifiableList(new ArrayList<>(sports));
+        this.skillLevels = Collections.unmodifiableList(new ArrayList<>(skillLevels));
+        this.timesOfDay = Collections.unmodifiableList(new ArrayList<>(timesOfDay));
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.nameTerm = nameTerm;
+        this.geo = false;
+    }
+
+    private GameQueryPlan(GameQueryPlan plan, List<TimeOfDay> timesOfDay) {
+        this.sports = plan.sports;
+        this.skillLevels = plan.skillLevels;
+        this.timesOfDay = Collections.unmodifiableList(new ArrayList<>(timesOfDay));
+        this.startMillis = null;
+        this.endMillis = null;
+        this.nameTerm = plan.nameTerm;
+        this.geo = true;
+    }
+
+    /**
+     * The facet clauses of this plan, for use under geohash range queries. Firestore allows one
+     * range field per query, so the date range is dropped and left to the client.
+     */
+    GameQueryPlan forGeo(boolean keepTimesOfDay) {
+        return new GameQueryPlan(this, keepTimesOfDay ? timesOfDay : Collections.emptyList());
+    }
+
+    List<Sport> getSports() {
+        return sports;
+    }
+
+    List<Difficulty> getSkillLevels() {
+        return skillLevels;
+    }
+
+    List<TimeOfDay> getTimesOfDay() {
+        return timesOfDay;
+    }
+
+    boolean hasDateRange() {
+        return startMillis != null && endMillis != null;
+    }
+
+    Query toQuery(CollectionReference games, int limit) {
+        Query query = games;
+        if (hasDateRange()) {
+            query = query.whereGreaterThanOrEqualTo(START_FIELD, startMillis)
+                    .whereLessThan(START_FIELD, endMillis)
+                    .orderBy(START_FIELD);
+        }
+        return constrain(query).limit(limit);
+    }
+
+    /**
+     * This plan in start time order, ties broken by document id, for paging with
+     * {@code startAfter(startMillis, id)} cursors. Games without a stored start time are left out.
+     */
+    Query toPagedQuery(CollectionReference games, boolean descending) {
+        Query.Direction direction = descending ? Query.Direction.DESCENDING : Query.Direction.ASCENDING;
+        Query query = games;
+        if (hasDateRange()) {
+            query = query.whereGreaterThanOrEqualTo(START_FIELD, startMillis)
+                    .whereLessThan(START_FIELD, endMillis);
+        }
+        return constrain(query)
+                .orderBy(START_FIELD, direction)
+                .orderBy(FieldPath.documentId(), direction);
+    }
+
+    // Adds the equality, in and array-contains clauses of this plan.
+    Query constrain(Query query) {
+        query = constrain(query, SPORT_FIELD, sports);
+        query = constrain(query, SKILL_LEVEL_FIELD, skillLevels);
+        query = constrain(query, TIME_OF_DAY_FIELD, timesOfDay);
+        if (nameTerm != null) {
+            query = query.whereArrayContains(NAME_FIELD, nameTerm);
+        }
+        return query;
+    }
+
+    /**
+     * Fields of the composite index this plan needs, in index order: equality and in clauses
+     * first, then array-contains, then the range field. Each entry is {fieldPath, mode}.
+     */
+    List<String[]> indexFields() {
+        List<String[]> fields = new ArrayList<>();
+        if (!sports.isEmpty()) {
+            fields.add(new String[]{SPORT_FIELD, GameQueryPlanner.ASCENDING});
+        }
+        if (!skillLevels.isEmpty()) {
+            fields.add(new String[]{SKILL_LEVEL_FIELD, GameQueryPlanner.ASCENDING});
+        }
+        if (!timesOfDay.isEmpty()) {
+            fields.add(new String[]{TIME_OF_DAY_FIELD, GameQueryPlanner.ASCENDING});
+        }
+        if (nameTerm != null) {
+            fields.add(new String[]{NAME_FIELD, GameQueryPlanner.CONTAINS});
+        }
+        if (hasDateRange()) {
+            fields.add(new String[]{START_FIELD, GameQueryPlanner.ASCENDING});
+        } else if (geo) {
+            fields.add(new String[]{GeoHash.FIELD, GameQueryPlanner.ASCENDING});
+        }
+        return fields;
+    }
+
+    // Fields of the index serving descending paged queries; ascending ones use the date range index.
+    List<String[]> descendingIndexFields() {
+        List<String[]> fields = new GameQueryPlan(sports, skillLevels, timesOfDay, null, null, nameTerm)
+                .indexFields();
+        fields.add(new String[]{START_FIELD, GameQueryPlanner.DESCENDING});
+        return fields;
+    }
+
+    private static Query constrain(Query query, String field, List<? extends Enum<?>> values) {
+        if (values.size() == 1) {
+            return query.whereEqualTo(field, values.get(0).name());
+        } else if (values.size() > 1) {
+            List<String> names = new ArrayList<>();
+            for (Enum<?> value : values) {
+                names.add(value.name());
+            }
+            return query.whereIn(field, names);
+        }
+        return query;
+    }
+
+    @Override
+    public String toString() {
+        return "GameQueryPlan{sports=" + sports + ", skillLevels=" + skillLevels
+                + ", timesOfDay=" + timesOfDay + ", start=" + startMillis + ".." + endMillis
+                + ", name=" + nameTerm + (geo ? ", geo" : "") + "}";
+    }
+}
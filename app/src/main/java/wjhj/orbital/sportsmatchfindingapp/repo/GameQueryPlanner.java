@@ -0,0 +1,177 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+
+/**
+ * Turns a {@link GameSearchFilter} into the smallest set of index-backed queries that covers it.
+ * Sports, skill levels and times of day are pushed to the server with equality or whereIn clauses
+ * on the stored fields (Firestore allows only one whereIn per query), a date range becomes a
+ * single range on the start time and anything that cannot be expressed on the server is left to
+ * the client-side filter.
+ *
+ * The composite indexes needed by every plan shape are listed in firestore.indexes.json at the
+ * project root, which is the output of {@link #indexDefinitionsJson()}. Regenerate it whenever
+ * the plan shapes change.
+ */
+class GameQueryPlanner {
+    static final int QUERY_LIMIT = 50;
+    static final int MAX_IN_VALUES = 10;
+    static final String ASCENDING = "ASCENDING";
+    static final String DESCENDING = "DESCENDING";
+    static final String CONTAINS = "CONTAINS";
+
+    private GameQueryPlanner() {
+    }
+
+    /**
+     * @param numericTimes whether every game has its numeric time fields, which is only the case
+     *                     once the game times backfill is done; until then the time of day and
+     *                     date range are left to the client
+     */
+    static List<GameQueryPlan> plan(GameSearchFilter filter, boolean numericTimes) {
+        List<Sport> sports = distinct(filter.getSportQuery(), Sport.class);
+        if (sports.isEmpty()) {
+            // Nothing selected means nothing to show.
+            return Collections.emptyList();
+        }
+        if (sports.size() == Sport.values().length) {
+            sports = Collections.emptyList();
+        }
+
+        List<Difficulty> skillLevels = distinct(filter.getSkillLevelQuery(), Difficulty.class);
+        if (skillLevels.size() == Difficulty.values().length) {
+            skillLevels = Collections.emptyList();
+        }
+        if (sports.size() > 1 && skillLevels.size() > 1) {
+            // Both fields would need the in clause; the skill level is left to the client.
+            skillLevels = Collections.emptyList();
+        }
+
+        String nameTerm = GameNameIndex.queryTerm(filter.getNameQuery());
+
+        Long startMillis = null;
+        Long endMillis = null;
+        if (numericTimes && filter.hasDateRangeQuery()) {
+            // Days are cut in this device's zone, and startMillis in the zone of the device that
+            // wrote the game. The range is only exact when the two agree, i.e. for games created
+            // in the searcher's own zone; others can land a day inside or outside either end.
+            startMillis = startOfDayMillis(filter.getStartDateQuery());
+            endMillis = startOfDayMillis(filter.getEndDateQuery().plusDays(1));
+        }
+
+        List<TimeOfDay> timesOfDay = distinct(filter.getTimeOfDayQuery(), TimeOfDay.class);
+        if (!numericTimes || timesOfDay.size() == TimeOfDay.values().length) {
+            timesOfDay = Collections.emptyList();
+        }
+
+        List<GameQueryPlan> plans = new ArrayList<>();
+        if (timesOfDay.size() > 1 && (sports.size() > 1 || skillLevels.size() > 1)) {
+            // The in clause is taken, so each time of day gets its own equality query.
+            for (TimeOfDay timeOfDay : timesOfDay) {
+                plans.add(new GameQueryPlan(sports, skillLevels, Collections.singletonList(timeOfDay),
+                        startMillis, endMillis, nameTerm));
+            }
+        } else {
+            plans.add(new GameQueryPlan(sports, skillLevels, timesOfDay, startMillis, endMillis, nameTerm));
+        }
+        return plans;
+    }
+
+    /**
+     * The facet clauses to run under the geohash queries of a location search, or null if the
+     * filter matches nothing. When the time of day would need its own queries it is left to the
+     * client, so every geohash cell still needs only one query.
+     */
+    @Nullable
+    static GameQueryPlan planGeo(GameSearchFilter filter, boolean numericTimes) {
+        List<GameQueryPlan> plans = plan(filter, numericTimes);
+        if (plans.isEmpty()) {
+            return null;
+        }
+        return plans.get(0).forGeo(plans.size() == 1);
+    }
+
+    /**
+     * Composite index definitions, in firestore.indexes.json format, for every plan shape this
+     * planner can emit. Equality, in and array-contains clauses are served by merging single
+     * field indexes, so only shapes that combine them with the date range, the geohash range or
+     * the start time order of paged queries need a composite.
+     */
+    static String indexDefinitionsJson() {
+        List<Sport> oneSport = Collections.singletonList(Sport.FOOTBALL);
+        List<Difficulty> oneSkillLevel = Collections.singletonList(Difficulty.BEGINNER);
+        List<TimeOfDay> oneTimeOfDay = Collections.singletonList(TimeOfDay.NIGHT);
+        List<List<String[]>> indexes = new ArrayList<>();
+        for (boolean sport : new boolean[]{true, false}) {
+            for (boolean skillLevel : new boolean[]{true, false}) {
+                for (boolean timeOfDay : new boolean[]{true, false}) {
+                    for (boolean name : new boolean[]{true, false}) {
+                        GameQueryPlan shape = new GameQueryPlan(
+                                sport ? oneSport : Collections.emptyList(),
+                                skillLevel ? oneSkillLevel : Collections.emptyList(),
+                                timeOfDay ? oneTimeOfDay : Collections.emptyList(),
+                                0L, 1L, name ? "name" : null);
+                        if (shape.indexFields().size() > 1) {
+                            indexes.add(shape.indexFields());
+                            // Paged queries read backwards when dropped pages are loaded again.
+                            indexes.add(shape.descendingIndexFields());
+                        }
+                        GameQueryPlan geoShape = shape.forGeo(true);
+                        if (geoShape.indexFields().size() > 1) {
+                            indexes.add(geoShape.indexFields());
+                        }
+                    }
+                }
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\n  \"indexes\": [\n");
+        for (int i = 0; i < indexes.size(); i++) {
+            json.append("    {\n")
+                    .append("      \"collectionGroup\": \"Games\",\n")
+                    .append("      \"queryScope\": \"COLLECTION\",\n")
+                    .append("      \"fields\": [\n");
+            List<String[]> fields = indexes.get(i);
+            for (int j = 0; j < fields.size(); j++) {
+                String[] field = fields.get(j);
+                String mode = CONTAINS.equals(field[1]) ? "arrayConfig" : "order";
+                json.append(String.format(Locale.US,
+                        "        { \"fieldPath\": \"%s\", \"%s\": \"%s\" }", field[0], mode, field[1]))
+                        .append(j < fields.size() - 1 ? ",\n" : "\n");
+            }
+            json.append("      ]\n    }").append(i < indexes.size() - 1 ? ",\n" : "\n");
+        }
+        return json.append("  ],\n  \"fieldOverrides\": []\n}\n").toString();
+    }
+
+    private static <E extends Enum<E>> List<E> distinct(List<E> values, Class<E> type) {
+        if (values == null || values.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<E> set = EnumSet.noneOf(type);
+        set.addAll(values);
+        if (set.size() > MAX_IN_VALUES) {
+            throw new IllegalArgumentException("Too many values for an in clause: " + set);
+        }
+        return new ArrayList<>(set);
+    }
+
+    // The conversion GameDataModel stores startMillis with.
+    private static long startOfDayMillis(LocalDate date) {
+        return GameDataModel.toEpochMillis(date, LocalTime.MIDNIGHT);
+    }
+}
@@ -0,0 +1,45 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+/**
+ * A position in game search results, which are ordered by the stored start time and then by game
+ * id. A page requested after a cursor starts with the first game past it.
+ */
+public final class GameSearchCursor {
+    private final long startMillis;
+    private final String uid;
+
+    GameSearchCursor(long startMillis, String uid) {
+        this.startMillis = startMillis;
+        this.uid = uid;
+    }
+
+    long getStartMillis() {
+        return startMillis;
+    }
+
+    String getUid() {
+        return uid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GameSearchCursor)) {
+            return false;
+        }
+        GameSearchCursor other = (GameSearchCursor) o;
+        return startMillis == other.startMillis && uid.equals(other.uid);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * Long.valueOf(startMillis).hashCode() + uid.hashCode();
+    }
+
+    @Override
+    public String toString() {
+        return "GameSearchCursor{" + startMillis + ", " + uid + "}";
+    }
+}
@@ -0,0 +1,98 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.NonNull;
+import androidx.paging.DataSource;
+import androidx.paging.ItemKeyedDataSource;
+import androidx.paging.PagedList;
+
+import com.google.android.gms.tasks.Tasks;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+
+/**
+ * Paging library source for game search results in start time order. Games are keyed by their
+ * own {@link GameSearchCursor}, so a page the PagedList has dropped to stay within
+ * {@link #MAX_LOADED_GAMES} can be read again from the game next to it. A page that fails to
+ * load invalidates the source, and the next one starts again from the last game shown.
+ */
+class GameSearchDataSource extends ItemKeyedDataSource<GameSearchCursor, Game> {
+    static final int PAGE_SIZE = 20;
+    static final int MAX_LOADED_GAMES = 100;
+
+    static final PagedList.Config CONFIG = new PagedList.Config.Builder()
+            .setPageSize(PAGE_SIZE)
+            .setPrefetchDistance(PAGE_SIZE)
+            .setMaxSize(MAX_LOADED_GAMES)
+            .setEnablePlaceholders(false)
+            .build();
+
+    private final GameSearchPager pager;
+
+    GameSearchDataSource(GameSearchPager pager) {
+        this.pager = pager;
+    }
+
+    // Runs on the paging fetch executor, which waits for the first page before showing anything.
+    // The initial key is the game shown last by a source before this one, so that game is kept.
+    @Override
+    public void loadInitial(@NonNull LoadInitialParams<GameSearchCursor> params,
+                            @NonNull LoadInitialCallback<Game> callback) {
+        List<Game> games;
+        try {
+            games = Tasks.await(pager.loadFrom(params.requestedInitialKey, params.requestedLoadSize))
+                    .getGames();
+        } catch (ExecutionException | InterruptedException e) {
+            Timber.d(e, "Game search first page failed");
+            games = new ArrayList<>();
+        }
+        callback.onResult(games);
+    }
+
+    @Override
+    public void loadAfter(@NonNull LoadParams<GameSearchCursor> params,
+                          @NonNull LoadCallback<Game> callback) {
+        load(params, callback, false);
+    }
+
+    @Override
+    public void loadBefore(@NonNull LoadParams<GameSearchCursor> params,
+                           @NonNull LoadCallback<Game> callback) {
+        load(params, callback, true);
+    }
+
+    @NonNull
+    @Override
+    public GameSearchCursor getKey(@NonNull Game game) {
+        return pager.cursorOf(game);
+    }
+
+    private void load(LoadParams<GameSearchCursor> params, LoadCallback<Game> callback,
+                      boolean backwards) {
+        pager.load(params.key, params.requestedLoadSize, backwards)
+                .addOnSuccessListener(page -> callback.onResult(page.getGames()))
+                .addOnFailureListener(e -> {
+                    // The callback cannot be retried, and an empty page would end the list here.
+                    Timber.d(e, "Game search page failed after %s", params.key);
+                    invalidate();
+                });
+    }
+
+    static class Factory extends DataSource.Factory<GameSearchCursor, Game> {
+        private final GameSearchPager pager;
+
+        Factory(GameSearchPager pager) {
+            this.pager = pager;
+        }
+
+        @NonNull
+        @Override
+        public DataSource<GameSearchCursor, Game> create() {
+            return new GameSearchDataSource(pager);
+        }
+    }
+}
@@ -1,7 +1,11 @@
 package wjhj.orbital.sportsmatchfindingapp.repo;
 
+import androidx.annotation.Nullable;
+
 import com.google.firebase.firestore.GeoPoint;
 
+import org.threeten.bp.LocalDate;
+
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -18,6 +22,8 @@ public class GameSearchFilter {
     private GeoPoint locationQuery;
     private double locationQueryRadius;
     private String locationName;
+    private LocalDate startDateQuery;
+    private LocalDate endDateQuery;
 
     public GameSearchFilter() {
         this.sportQuery = new ArrayList<>();
@@ -97,4 +103,22 @@ public class GameSearchFilter {
     public String getLocationName() {
         return locationName;
     }
+
+    // Restricts the search to games starting between the two dates, both inclusive.
+    public void setDateRangeQuery(@Nullable LocalDate startDate, @Nullable LocalDate endDate) {
+        startDateQuery = startDate;
+        endDateQuery = endDate;
+    }
+
+    public boolean hasDateRangeQuery() {
+        return startDateQuery != null && endDateQuery != null;
+    }
+
+    public LocalDate getStartDateQuery() {
+        return startDateQuery;
+    }
+
+    public LocalDate getEndDateQuery() {
+        return endDateQuery;
+    }
 }
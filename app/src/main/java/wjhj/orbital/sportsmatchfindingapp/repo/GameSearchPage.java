@@ -0,0 +1,29 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+
+import java.util.Collections;
+import java.util.List;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+
+// One page of game search results and the cursor to read the following page from.
+public final class GameSearchPage {
+    private final List<Game> games;
+    @Nullable private final GameSearchCursor next;
+
+    GameSearchPage(List<Game> games, @Nullable GameSearchCursor next) {
+        this.games = Collections.unmodifiableList(games);
+        this.next = next;
+    }
+
+    public List<Game> getGames() {
+        return games;
+    }
+
+    // Null once every result has been read.
+    @Nullable
+    public GameSearchCursor getNext() {
+        return next;
+    }
+}
@@ -0,0 +1,136 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.Nullable;
+
+import com.google.android.gms.tasks.Task;
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+
+/**
+ * Reads game search results a page at a time, in start time order. Every plan from
+ * {@link GameQueryPlanner} is resumed from the same {@link GameSearchCursor} and the results are
+ * merged, so a page holds the first games past the cursor across all plans and no plan is cut
+ * off by a fixed limit. Facets the plans leave to the client are checked afterwards; a page they
+ * empty entirely is skipped rather than returned. Cursors use the start time stored with each
+ * game rather than one derived from its local date and time, which depends on the time zone.
+ */
+class GameSearchPager {
+    private static final Comparator<DocumentSnapshot> SEARCH_ORDER = (a, b) -> {
+        int byStart = Long.compare(startMillis(a), startMillis(b));
+        return byStart != 0 ? byStart : a.getId().compareTo(b.getId());
+    };
+
+    private final CollectionReference games;
+    private final List<GameQueryPlan> plans;
+    private final GameFilterIndex.FilterMask mask;
+    private final Function<DocumentSnapshot, Game> mapper;
+    private final Map<String, Long> startTimes = new ConcurrentHashMap<>();
+
+    // The filter is read once here; later changes to it are not picked up.
+    GameSearchPager(CollectionReference games, GameSearchFilter filter,
+                    Function<DocumentSnapshot, Game> mapper) {
+        this.games = games;
+        // Paging is ordered by the start time, so it needs the numeric times either way.
+        this.plans = GameQueryPlanner.plan(filter, true);
+        this.mask = GameFilterIndex.FilterMask.of(filter);
+        this.mapper = mapper;
+    }
+
+    /**
+     * Up to {@code pageSize} games immediately after the cursor, or immediately before it when
+     * reading backwards, in search order either way. A null cursor starts from the first game,
+     * or the last one backwards. The page's next cursor continues in the same direction.
+     */
+    Task<GameSearchPage> load(@Nullable GameSearchCursor cursor, int pageSize, boolean backwards) {
+        return load(cursor, pageSize, backwards, false);
+    }
+
+    // Like load(cursor, pageSize, false), but the page starts with the game at the cursor, if any.
+    Task<GameSearchPage> loadFrom(@Nullable GameSearchCursor cursor, int pageSize) {
+        return load(cursor, pageSize, false, true);
+    }
+
+    private Task<GameSearchPage> load(@Nullable GameSearchCursor cursor, int pageSize, boolean backwards,
+                                      boolean inclusive) {
+        if (plans.isEmpty()) {
+            return Tasks.forResult(new GameSearchPage(new ArrayList<>(), null));
+        }
+
+        List<Task<QuerySnapshot>> reads = new ArrayList<>();
+        for (GameQueryPlan plan : plans) {
+            Query query = plan.toPagedQuery(games, backwards);
+            if (cursor != null && inclusive) {
+                query = query.startAt(cursor.getStartMillis(), cursor.getUid());
+            } else if (cursor != null) {
+                query = query.startAfter(cursor.getStartMillis(), cursor.getUid());
+            }
+            reads.add(query.limit(pageSize).get());
+        }
+
+        return Tasks.<QuerySnapshot>whenAllSuccess(reads).continueWithTask(task -> {
+            List<DocumentSnapshot> merged = new ArrayList<>();
+            boolean lastPage = true;
+            for (QuerySnapshot snapshots : task.getResult()) {
+                merged.addAll(snapshots.getDocuments());
+                lastPage &= snapshots.size() < pageSize;
+            }
+            Collections.sort(merged, backwards ? Collections.reverseOrder(SEARCH_ORDER) : SEARCH_ORDER);
+
+            // Past the first pageSize documents, a plan that filled its page may have unread
+            // documents that belong earlier, so the rest waits for the next page.
+            List<DocumentSnapshot> page = merged.subList(0, Math.min(pageSize, merged.size()));
+            lastPage &= page.size() == merged.size();
+
+            List<Game> results = new ArrayList<>();
+            for (DocumentSnapshot document : page) {
+                Game game = mapper.apply(document);
+                if (game != null && mask.matches(game)) {
+                    startTimes.put(game.getUid(), startMillis(document));
+                    results.add(game);
+                }
+            }
+
+            GameSearchCursor next = null;
+            if (!lastPage) {
+                DocumentSnapshot last = page.get(page.size() - 1);
+                next = new GameSearchCursor(startMillis(last), last.getId());
+            }
+            if (results.isEmpty() && next != null) {
+                Timber.d("Skipping game search page filtered down to nothing");
+                return load(next, pageSize, backwards);
+            }
+            if (backwards) {
+                Collections.reverse(results);
+            }
+            return Tasks.forResult(new GameSearchPage(results, next));
+        });
+    }
+
+    // The position of a game returned by this pager.
+    GameSearchCursor cursorOf(Game game) {
+        Long startMillis = startTimes.get(game.getUid());
+        if (startMillis == null) {
+            startMillis = GameDataModel.toEpochMillis(game.getDate(), game.getTime());
+        }
+        return new GameSearchCursor(startMillis, game.getUid());
+    }
+
+    private static long startMillis(DocumentSnapshot document) {
+        Long startMillis = document.getLong(GameDataModel.START_MILLIS_FIELD);
+        return startMillis == null ? 0 : startMillis;
+    }
+}
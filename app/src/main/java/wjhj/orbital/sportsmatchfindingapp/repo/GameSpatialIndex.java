@@ -0,0 +1,343 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+
+/**
+ * In-memory point quadtree over the location of every cached game, for radius, map viewport and
+ * nearest neighbour searches without the network. Latitude and longitude are split as a plain
+ * rectangle; leaves hold up to {@link #LEAF_CAPACITY} games in parallel arrays and split when they
+ * overflow, so a query only looks at the leaves its box overlaps. Radius results are checked
+ * against the exact great circle distance.
+ */
+class GameSpatialIndex {
+    static final int LEAF_CAPACITY = 16;
+    // Stops splitting when many games share almost the same spot, e.g. one sports hall.
+    private static final int MAX_DEPTH = 24;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double HALF_CIRCUMFERENCE_KM = Math.PI * EARTH_RADIUS_KM;
+    private static final double FIRST_NEAREST_RADIUS_KM = 1;
+
+    private final Map<String, Game> games = new HashMap<>();
+    private final Node root = new Node(-90, 90, -180, 180, 0);
+
+    synchronized void put(Game game) {
+        Game previous = games.put(game.getUid(), game);
+        if (previous != null && previous.getLocation() != null) {
+            root.remove(previous.getUid(), previous.getLocation().getLatitude(),
+                    previous.getLocation().getLongitude());
+        }
+        GeoPoint location = game.getLocation();
+        if (location == null) {
+            games.remove(game.getUid());
+            return;
+        }
+        root.insert(game, location.getLatitude(), location.getLongitude());
+    }
+
+    synchronized void putAll(Collection<Game> newGames) {
+        for (Game game : newGames) {
+            put(game);
+        }
+    }
+
+    // Games already indexed are kept, e.g. when they came from the server first.
+    synchronized void putAllIfAbsent(Collection<Game> newGames) {
+        for (Game game : newGames) {
+            if (!games.containsKey(game.getUid())) {
+                put(game);
+            }
+        }
+    }
+
+    synchronized void remove(String uid) {
+        Game previous = games.remove(uid);
+        if (previous != null) {
+            root.remove(uid, previous.getLocation().getLatitude(),
+                    previous.getLocation().getLongitude());
+        }
+    }
+
+    synchronized void clear() {
+        games.clear();
+        root.clear();
+    }
+
+    synchronized int size() {
+        return games.size();
+    }
+
+    // Every game within the radius of the center, in no particular order.
+    synchronized List<Game> withinRadius(GeoPoint center, double radiusKm) {
+        List<Game> results = new ArrayList<>();
+        double lat = center.getLatitude();
+        double lng = center.getLongitude();
+        double latDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double south = lat - latDelta;
+        double north = lat + latDelta;
+        if (south <= -90 || north >= 90) {
+            // The circle contains a pole, so it spans every longitude.
+            root.search(Math.max(-90, south), Math.min(90, north), -180, 180, lat, lng, radiusKm, results);
+            return results;
+        }
+
+        double cosLat = Math.cos(Math.toRadians(Math.max(Math.abs(south), Math.abs(north))));
+        double lngDelta = Math.min(180, latDelta / cosLat);
+        searchLongitudes(south, north, lng - lngDelta, lng + lngDelta, lat, lng, radiusKm, results);
+        return results;
+    }
+
+    /**
+     * Every game inside the box between the two corners, as shown by a map. A box whose west edge
+     * is east of its east edge crosses the antimeridian.
+     */
+    synchronized List<Game> withinBox(GeoPoint southWest, GeoPoint northEast) {
+        List<Game> results = new ArrayList<>();
+        double west = southWest.getLongitude();
+        double east = northEast.getLongitude();
+        if (west > east) {
+            east += 360;
+        }
+        // A negative radius turns the distance check off.
+        searchLongitudes(southWest.getLatitude(), northEast.getLatitude(), west, east, 0, 0, -1,
+                results);
+        return results;
+    }
+
+    /**
+     * The {@code count} games closest to the center, nearest first. The search radius grows until
+     * it holds enough games; every game outside a radius is further away than every game in it,
+     * so the closest ones within that radius are the closest overall.
+     */
+    synchronized List<Game> nearest(GeoPoint center, int count) {
+        if (count <= 0 || games.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Game> candidates;
+        double radiusKm = FIRST_NEAREST_RADIUS_KM;
+        while (true) {
+            candidates = withinRadius(center, radiusKm);
+            if (candidates.size() >= count || radiusKm >= HALF_CIRCUMFERENCE_KM) {
+                break;
+            }
+            radiusKm *= 4;
+        }
+
+        int size = candidates.size();
+        double[] distances = new double[size];
+        Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            GeoPoint location = candidates.get(i).getLocation();
+            distances[i] = GeoHash.distanceKm(center.getLatitude(), center.getLongitude(),
+                    location.getLatitude(), location.getLongitude());
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(distances[a], distances[b]));
+
+        List<Game> results = new ArrayList<>(Math.min(count, size));
+        for (int i = 0; i < size && i < count; i++) {
+            results.add(candidates.get(order[i]));
+        }
+        return results;
+    }
+
+    static boolean inBox(GeoPoint point, GeoPoint southWest, GeoPoint northEast) {
+        double lat = point.getLatitude();
+        double lng = point.getLongitude();
+        if (lat < southWest.getLatitude() || lat > northEast.getLatitude()) {
+            return false;
+        }
+        double west = southWest.getLongitude();
+        double east = northEast.getLongitude();
+        return west <= east ? lng >= west && lng <= east : lng >= west || lng <= east;
+    }
+
+    // Splits a longitude range running past either end of [-180, 180] into two searches.
+    private void searchLongitudes(double south, double north, double west, double east,
+                                  double lat, double lng, double radiusKm, List<Game> out) {
+        if (east - west >= 360) {
+            root.search(south, north, -180, 180, lat, lng, radiusKm, out);
+        } else if (west < -180) {
+            root.search(south, north, west + 360, 180, lat, lng, radiusKm, out);
+            root.search(south, north, -180, east, lat, lng, radiusKm, out);
+        } else if (east > 180) {
+            root.search(south, north, west, 180, lat, lng, radiusKm, out);
+            root.search(south, north, -180, east - 360, lat, lng, radiusKm, out);
+        } else {
+            root.search(south, north, west, east, lat, lng, radiusKm, out);
+        }
+    }
+
+    private static class Node {
+        private final double south;
+        private final double north;
+        private final double west;
+        private final double east;
+        private final int depth;
+
+        // Leaf contents; null once the node has been split.
+        private Game[] games = new Game[LEAF_CAPACITY];
+        private double[] lats = new double[LEAF_CAPACITY];
+        private double[] lngs = new double[LEAF_CAPACITY];
+        private int count;
+        // South west, south east, north west, north east; null while the node is a leaf.
+        private Node[] children;
+        // Games in this node and everything below it.
+        private int size;
+
+        Node(double south, double north, double west, double east, int depth) {
+            this.south = south;
+            this.north = north;
+            this.west = west;
+            this.east = east;
+            this.depth = depth;
+        }
+
+        void insert(Game game, double lat, double lng) {
+            size++;
+            if (children != null) {
+                children[childIndex(lat, lng)].insert(game, lat, lng);
+                return;
+            }
+            if (count == games.length) {
+                if (depth < MAX_DEPTH) {
+                    split();
+                    children[childIndex(lat, lng)].insert(game, lat, lng);
+                    return;
+                }
+                games = Arrays.copyOf(games, count * 2);
+                lats = Arrays.copyOf(lats, count * 2);
+                lngs = Arrays.copyOf(lngs, count * 2);
+            }
+            games[count] = game;
+            lats[count] = lat;
+            lngs[count] = lng;
+            count++;
+        }
+
+        boolean remove(String uid, double lat, double lng) {
+            boolean removed;
+            if (children != null) {
+                removed = children[childIndex(lat, lng)].remove(uid, lat, lng);
+            } else {
+                removed = false;
+                for (int i = 0; i < count; i++) {
+                    if (games[i].getUid().equals(uid)) {
+                        count--;
+                        games[i] = games[count];
+                        lats[i] = lats[count];
+                        lngs[i] = lngs[count];
+                        games[count] = null;
+                        removed = true;
+                        break;
+                    }
+                }
+            }
+            if (removed) {
+                size--;
+                if (children != null && size <= LEAF_CAPACITY / 2) {
+                    merge();
+                }
+            }
+            return removed;
+        }
+
+        void clear() {
+            games = new Game[LEAF_CAPACITY];
+            lats = new double[LEAF_CAPACITY];
+            lngs = new double[LEAF_CAPACITY];
+            count = 0;
+            children = null;
+            size = 0;
+        }
+
+        /**
+         * Adds the games inside the box and, when {@code radiusKm} is not negative, also within
+         * that distance of (lat, lng). Nodes entirely inside the box skip the box checks.
+         */
+        void search(double boxSouth, double boxNorth, double boxWest, double boxEast,
+                    double lat, double lng, double radiusKm, List<Game> out) {
+            if (size == 0 || boxSouth > north || boxNorth < south || boxWest > east || boxEast < west) {
+                return;
+            }
+            if (children != null) {
+                for (Node child : children) {
+                    child.search(boxSouth, boxNorth, boxWest, boxEast, lat, lng, radiusKm, out);
+                }
+                return;
+            }
+
+            boolean contained = boxSouth <= south && boxNorth >= north
+                    && boxWest <= west && boxEast >= east;
+            for (int i = 0; i < count; i++) {
+                if (!contained && (lats[i] < boxSouth || lats[i] > boxNorth
+                        || lngs[i] < boxWest || lngs[i] > boxEast)) {
+                    continue;
+                }
+                if (radiusKm < 0 || GeoHash.distanceKm(lat, lng, lats[i], lngs[i]) <= radiusKm) {
+                    out.add(games[i]);
+                }
+            }
+        }
+
+        private int childIndex(double lat, double lng) {
+            int index = lat >= (south + north) / 2 ? 2 : 0;
+            return lng >= (west + east) / 2 ? index + 1 : index;
+        }
+
+        private void split() {
+            double midLat = (south + north) / 2;
+            double midLng = (west + east) / 2;
+            children = new Node[]{
+                    new Node(south, midLat, west, midLng, depth + 1),
+                    new Node(south, midLat, midLng, east, depth + 1),
+                    new Node(midLat, north, west, midLng, depth + 1),
+                    new Node(midLat, north, midLng, east, depth + 1)
+            };
+            for (int i = 0; i < count; i++) {
+                children[childIndex(lats[i], lngs[i])].insert(games[i], lats[i], lngs[i]);
+            }
+            games = null;
+            lats = null;
+            lngs = null;
+            count = 0;
+        }
+
+        // Turns a node whose subtree has shrunk back into a single leaf.
+        private void merge() {
+            games = new Game[LEAF_CAPACITY];
+            lats = new double[LEAF_CAPACITY];
+            lngs = new double[LEAF_CAPACITY];
+            count = 0;
+            Node[] oldChildren = children;
+            children = null;
+            for (Node child : oldChildren) {
+                child.moveInto(this);
+            }
+        }
+
+        private void moveInto(Node leaf) {
+            if (children != null) {
+                for (Node child : children) {
+                    child.moveInto(leaf);
+                }
+                return;
+            }
+            for (int i = 0; i < count; i++) {
+                leaf.games[leaf.count] = games[i];
+                leaf.lats[leaf.count] = lats[i];
+                leaf.lngs[leaf.count] = lngs[i];
+                leaf.count++;
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+
+import androidx.annotation.NonNull;
+import androidx.work.Constraints;
+import androidx.work.ExistingPeriodicWorkPolicy;
+import androidx.work.NetworkType;
+import androidx.work.PeriodicWorkRequest;
+import androidx.work.WorkManager;
+import androidx.work.Worker;
+import androidx.work.WorkerParameters;
+
+import com.google.android.gms.tasks.Tasks;
+import com.google.firebase.auth.FirebaseAuth;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import timber.log.Timber;
+
+/**
+ * Periodically moves the signed in user's finished games to completed. Replaces the status update
+ * that used to run one transaction per participant every time a finished game was viewed.
+ */
+public class GameStatusWorker extends Worker {
+    private static final String WORK_NAME = "complete-finished-games";
+    private static final long REPEAT_INTERVAL_HOURS = 6;
+
+    private static final String PREFS_NAME = "game_status_worker";
+    private static final String SAVED_WRITES_KEY = "saved_writes";
+
+    public GameStatusWorker(@NonNull Context context, @NonNull WorkerParameters params) {
+        super(context, params);
+    }
+
+    public static void schedule(Context context) {
+        Constraints constraints = new Constraints.Builder()
+                .setRequiredNetworkType(NetworkType.CONNECTED)
+                .build();
+        PeriodicWorkRequest request = new PeriodicWorkRequest.Builder(GameStatusWorker.class,
+                REPEAT_INTERVAL_HOURS, TimeUnit.HOURS)
+                .setConstraints(constraints)
+                .build();
+        WorkManager.getInstance(context)
+                .enqueueUniquePeriodicWork(WORK_NAME, ExistingPeriodicWorkPolicy.KEEP, request);
+    }
+
+    // Total writes avoided on this device compared to the per-participant transactions.
+    public static long getSavedWrites(Context context) {
+        return prefs(context).getLong(SAVED_WRITES_KEY, 0);
+    }
+
+    @NonNull
+    @Override
+    public Result doWork() {
+        String userUid = FirebaseAuth.getInstance().getUid();
+        if (userUid == null) {
+            return Result.success();
+        }
+
+        try {
+            int replacedTransactions =
+                    Tasks.await(SportalRepo.getInstance().completeFinishedGames(userUid));
+            if (replacedTransactions > 0) {
+                // One batched write was made in place of the transactions.
+                recordSavedWrites(replacedTransactions - 1);
+            }
+            return Result.success();
+        } catch (ExecutionException e) {
+            Timber.d(e, "Completing finished games failed");
+            return Result.retry();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            Timber.d(e, "Completing finished games was interrupted");
+            return Result.retry();
+        }
+    }
+
+    private void recordSavedWrites(long saved) {
+        SharedPreferences prefs = prefs(getApplicationContext());
+        long total = prefs.getLong(SAVED_WRITES_KEY, 0) + saved;
+        prefs.edit().putLong(SAVED_WRITES_KEY, total).apply();
+        Timber.d("Saved %d writes (%d total)", saved, total);
+    }
+
+    private static SharedPreferences prefs(Context context) {
+        return context.getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE);
+    }
+}
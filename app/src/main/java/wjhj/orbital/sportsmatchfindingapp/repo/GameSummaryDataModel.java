@@ -0,0 +1,135 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+
+// Stored at GameSummaries/{gameUid}; a copy of the game fields shown on game cards.
+@SuppressWarnings("WeakerAccess")
+class GameSummaryDataModel {
+    static final String PARTICIPANT_COUNT_FIELD = "participantCount";
+
+    private String uid;
+    private String gameName;
+    private Sport sport;
+    private Difficulty skillLevel;
+    private String placeName;
+    private String date;
+    private String time;
+    private String duration;
+    private int minPlayers;
+    private int maxPlayers;
+    private int participantCount;
+
+    // Mandatory no args constructor
+    public GameSummaryDataModel() {
+    }
+
+    GameSummaryDataModel(Game game) {
+        uid = game.getUid();
+        gameName = game.getGameName();
+        sport = game.getSport();
+        skillLevel = game.getSkillLevel();
+        placeName = game.getPlaceName();
+        date = game.getDate().toString();
+        time = game.getTime().toString();
+        duration = game.getDuration().toString();
+        minPlayers = game.getMinPlayers();
+        maxPlayers = game.getMaxPlayers();
+        participantCount = game.getParticipatingUids().size();
+    }
+
+    // A summary created by a partial write before the full copy existed.
+    boolean isIncomplete() {
+        return uid == null || gameName == null || sport == null || skillLevel == null
+                || date == null || time == null || duration == null;
+    }
+
+    public String getUid() {
+        return uid;
+    }
+
+    public String getGameName() {
+        return gameName;
+    }
+
+    public Sport getSport() {
+        return sport;
+    }
+
+    public Difficulty getSkillLevel() {
+        return skillLevel;
+    }
+
+    public String getPlaceName() {
+        return placeName;
+    }
+
+    public String getDate() {
+        return date;
+    }
+
+    public String getTime() {
+        return time;
+    }
+
+    public String getDuration() {
+        return duration;
+    }
+
+    public int getMinPlayers() {
+        return minPlayers;
+    }
+
+    public int getMaxPlayers() {
+        return maxPlayers;
+    }
+
+    public int getParticipantCount() {
+        return participantCount;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public void setGameName(String gameName) {
+        this.gameName = gameName;
+    }
+
+    public void setSport(Sport sport) {
+        this.sport = sport;
+    }
+
+    public void setSkillLevel(Difficulty skillLevel) {
+        this.skillLevel = skillLevel;
+    }
+
+    public void setPlaceName(String placeName) {
+        this.placeName = placeName;
+    }
+
+    public void setDate(String date) {
+        this.date = date;
+    }
+
+    public void setTime(String time) {
+        this.time = time;
+    }
+
+    public void setDuration(String duration) {
+        this.duration = duration;
+    }
+
+    public void setMinPlayers(int minPlayers) {
+        this.minPlayers = minPlayers;
+    }
+
+    public void setMaxPlayers(int maxPlayers) {
+        this.maxPlayers = maxPlayers;
+    }
+
+    public void setParticipantCount(int participantCount) {
+        this.participantCount = participantCount;
+    }
+}
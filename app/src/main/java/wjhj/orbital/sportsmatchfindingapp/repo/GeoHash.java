@@ -0,0 +1,183 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Geohash encoding and radius covering, compatible with the "g" field written by GeoFirestore.
+ * A geohash is a string of base 32 characters, each holding five bits that alternately halve the
+ * longitude and latitude ranges, longitude first. All hashes starting with the same prefix lie in
+ * one cell, so a cell is a lexicographic range query on the stored hash.
+ */
+final class GeoHash {
+    static final String FIELD = "g";
+    static final int STORED_PRECISION = 10;
+    static final int MAX_CELLS = 32;
+
+    private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+    private static final int BITS_PER_CHAR = 5;
+    private static final int MAX_BITS = STORED_PRECISION * BITS_PER_CHAR;
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double EARTH_CIRCUMFERENCE_KM = 40_007.86;
+    // Sorts after every base 32 character, closing a range that covers every longer hash.
+    private static final String END_OF_RANGE = "~";
+
+    private GeoHash() {
+    }
+
+    static String encode(GeoPoint point, int precision) {
+        long bits = interleave(
+                cellIndex(point.getLongitude(), -180, 180, (precision * BITS_PER_CHAR + 1) / 2),
+                cellIndex(point.getLatitude(), -90, 90, precision * BITS_PER_CHAR / 2),
+                precision * BITS_PER_CHAR);
+        return toBase32(bits, precision);
+    }
+
+    // Great circle distance in kilometres.
+    static double distanceKm(GeoPoint a, GeoPoint b) {
+        return distanceKm(a.getLatitude(), a.getLongitude(), b.getLatitude(), b.getLongitude());
+    }
+
+    static double distanceKm(double latA, double lngA, double latB, double lngB) {
+        double lat1 = Math.toRadians(latA);
+        double lat2 = Math.toRadians(latB);
+        double dLat = lat2 - lat1;
+        double dLng = Math.toRadians(lngB - lngA);
+        double h = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(lat1) * Math.cos(lat2) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(h)));
+    }
+
+    /**
+     * Bits of geohash precision whose cells are at least as large as the radius, so that a
+     * handful of cells covers the circle. This is the cheapest precision in queries issued.
+     */
+    static int defaultBits(double radiusKm) {
+        double latitudeBits = Math.log(EARTH_CIRCUMFERENCE_KM / 2 / radiusKm) / Math.log(2);
+        int bits = (int) Math.floor(latitudeBits) * 2;
+        return Math.max(1, Math.min(MAX_BITS, bits));
+    }
+
+    /**
+     * Sorted, non-overlapping [start, end) ranges of the "g" field that together contain every
+     * point within the radius. Each precision bit above {@link #defaultBits(double)} roughly
+     * halves the area read outside the circle at the cost of more cells; the precision is lowered
+     * again until the covering fits in {@link #MAX_CELLS} cells.
+     */
+    static List<String[]> coveringRanges(GeoPoint center, double radiusKm, int extraBits) {
+        int bits = Math.max(1, Math.min(MAX_BITS, defaultBits(radiusKm) + extraBits));
+        double latDelta = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        double south = center.getLatitude() - latDelta;
+        double north = center.getLatitude() + latDelta;
+        double lngDelta;
+        if (south <= -90 || north >= 90) {
+            // The circle contains a pole, so it spans every longitude.
+            lngDelta = 180;
+            south = Math.max(-90, south);
+            north = Math.min(90, north);
+        } else {
+            double widestLatitude = Math.max(Math.abs(south), Math.abs(north));
+            double cosLat = Math.cos(Math.toRadians(Math.min(widestLatitude, 89.9)));
+            lngDelta = Math.min(180, latDelta / cosLat);
+        }
+        double west = center.getLongitude() - lngDelta;
+        double east = center.getLongitude() + lngDelta;
+
+        TreeSet<Long> cells;
+        while (true) {
+            cells = cells(bits, south, north, west, east);
+            if (cells.size() <= MAX_CELLS || bits == 1) {
+                break;
+            }
+            bits--;
+        }
+
+        int chars = (bits + BITS_PER_CHAR - 1) / BITS_PER_CHAR;
+        int padding = chars * BITS_PER_CHAR - bits;
+        List<String[]> ranges = new ArrayList<>();
+        long rangeStart = -1;
+        long rangeEnd = -1;
+        for (long cell : cells) {
+            if (cell != rangeEnd) {
+                if (rangeStart >= 0) {
+                    ranges.add(range(rangeStart, rangeEnd, chars, padding));
+                }
+                rangeStart = cell;
+            }
+            rangeEnd = cell + 1;
+        }
+        if (rangeStart >= 0) {
+            ranges.add(range(rangeStart, rangeEnd, chars, padding));
+        }
+        return ranges;
+    }
+
+    // Every cell at the given precision that intersects the box, as its interleaved bits.
+    private static TreeSet<Long> cells(int bits, double south, double north, double west, double east) {
+        int lngBits = (bits + 1) / 2;
+        int latBits = bits / 2;
+        long lngCells = 1L << lngBits;
+        long firstLat = cellIndex(south, -90, 90, latBits);
+        long lastLat = cellIndex(north, -90, 90, latBits);
+
+        // Longitude indexes are computed unwrapped so a box crossing the antimeridian stays contiguous.
+        double cellWidth = 360.0 / lngCells;
+        long westIndex = (long) Math.floor((west + 180) / cellWidth);
+        long eastIndex = (long) Math.floor((east + 180) / cellWidth);
+        long lngCount = Math.min(eastIndex - westIndex + 1, lngCells);
+        long firstLng = (westIndex % lngCells + lngCells) % lngCells;
+
+        TreeSet<Long> cells = new TreeSet<>();
+        for (long lat = firstLat; lat <= lastLat; lat++) {
+            for (long step = 0; step < lngCount; step++) {
+                cells.add(interleave((firstLng + step) % lngCells, lat, bits));
+                if (cells.size() > MAX_CELLS && bits > 1) {
+                    return cells;
+                }
+            }
+        }
+        return cells;
+    }
+
+    private static String[] range(long startCell, long endCell, int chars, int padding) {
+        String start = toBase32(startCell << padding, chars);
+        long end = endCell << padding;
+        String endHash = end >= 1L << (chars * BITS_PER_CHAR) ? END_OF_RANGE : toBase32(end, chars);
+        return new String[]{start, endHash};
+    }
+
+    private static long cellIndex(double value, double min, double max, int bits) {
+        long cells = 1L << bits;
+        long index = (long) Math.floor((value - min) / (max - min) * cells);
+        return Math.max(0, Math.min(cells - 1, index));
+    }
+
+    // Interleaves the bits of both indexes, longitude first, most significant bit first.
+    private static long interleave(long lngIndex, long latIndex, int bits) {
+        int lngBits = (bits + 1) / 2;
+        int latBits = bits / 2;
+        long result = 0;
+        for (int i = 0; i < bits; i++) {
+            long bit;
+            if (i % 2 == 0) {
+                bit = (lngIndex >> (lngBits - 1 - i / 2)) & 1;
+            } else {
+                bit = (latIndex >> (latBits - 1 - i / 2)) & 1;
+            }
+            result = (result << 1) | bit;
+        }
+        return result;
+    }
+
+    private static String toBase32(long bits, int chars) {
+        char[] hash = new char[chars];
+        for (int i = chars - 1; i >= 0; i--) {
+            hash[i] = BASE32.charAt((int) (bits & 31));
+            bits >>= BITS_PER_CHAR;
+        }
+        return new String(hash);
+    }
+}
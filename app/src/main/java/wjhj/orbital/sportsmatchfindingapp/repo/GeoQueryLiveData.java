@@ -0,0 +1,183 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.firebase.firestore.DocumentChange;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.GeoPoint;
+import com.google.firebase.firestore.ListenerRegistration;
+import com.google.firebase.firestore.Query;
+import com.google.firebase.firestore.QuerySnapshot;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+
+/**
+ * The documents within a radius, keyed by id. The radius is covered by geohash cells from
+ * {@link GeoHash#coveringRanges}, each listened to with its own range query on the "g" field;
+ * the cell results are checked against the exact distance and merged into one map that follows
+ * every document entering, leaving or changing inside the circle. The first value is emitted once
+ * every cell has reported. Unlike other {@link FirestoreLiveData}, the listeners are removed as
+ * soon as the last observer goes away, since a radius query is not shared between screens.
+ */
+class GeoQueryLiveData<T> extends FirestoreLiveData<Map<String, T>> {
+    static final String LOCATION_FIELD = "location";
+    // Written by GeoFirestore next to the hash; used when the document has no location field.
+    private static final String GEOFIRESTORE_LOCATION_FIELD = "l";
+
+    private final Query query;
+    private final GeoPoint center;
+    private final double radiusKm;
+    private final List<String[]> cells;
+    private final Function<DocumentSnapshot, T> mapper;
+
+    private final Map<String, T> results = new LinkedHashMap<>();
+    // The cell whose query last reported each document inside the radius.
+    private final Map<String, Integer> cellOf = new HashMap<>();
+    private boolean[] reported;
+    private int unreportedCells;
+    private int entered;
+    private int exited;
+    private int changed;
+
+    /**
+     * @param query     the collection, optionally narrowed with equality clauses
+     * @param extraBits geohash precision above the default for the radius; higher values read
+     *                  fewer documents outside the circle but issue more cell queries
+     * @param mapper    converts a document inside the radius, or returns null to exclude it
+     */
+    GeoQueryLiveData(Query query, GeoPoint center, double radiusKm, int extraBits,
+                     Function<DocumentSnapshot, T> mapper) {
+        this.query = query;
+        this.center = center;
+        this.radiusKm = radiusKm;
+        this.cells = GeoHash.coveringRanges(center, radiusKm, extraBits);
+        this.mapper = mapper;
+    }
+
+    @Override
+    protected void onInactive() {
+        detach();
+    }
+
+    // One listener per cell.
+    @Override
+    int listenerCount() {
+        return cells.size();
+    }
+
+    @Override
+    ListenerRegistration attach() {
+        reset();
+        Timber.d("Listening to %d geohash cells within %.1f km", cells.size(), radiusKm);
+        List<ListenerRegistration> registrations = new ArrayList<>();
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = i;
+            registrations.add(cellQuery(cell).addSnapshotListener((snapshots, err) -> {
+                if (err != null) {
+                    Timber.d(err, "geo query snapshot error");
+                } else if (snapshots != null) {
+                    onCellSnapshot(cell, snapshots);
+                }
+            }));
+        }
+        return () -> {
+            for (ListenerRegistration registration : registrations) {
+                registration.remove();
+            }
+        };
+    }
+
+    @Override
+    void fetchOnce() {
+        reset();
+        for (int i = 0; i < cells.size(); i++) {
+            int cell = i;
+            cellQuery(cell).get()
+                    .addOnSuccessListener(snapshots -> onCellSnapshot(cell, snapshots))
+                    .addOnFailureListener(e -> Timber.d(e, "geo query read error"));
+        }
+    }
+
+    private Query cellQuery(int cell) {
+        String[] range = cells.get(cell);
+        return query.orderBy(GeoHash.FIELD)
+                .startAt(range[0])
+                .endBefore(range[1]);
+    }
+
+    // Results are rebuilt from scratch on every attach; the last value stays visible meanwhile.
+    private void reset() {
+        results.clear();
+        cellOf.clear();
+        reported = new boolean[cells.size()];
+        unreportedCells = cells.size();
+        if (unreportedCells == 0) {
+            setValue(new LinkedHashMap<>());
+        }
+    }
+
+    private void onCellSnapshot(int cell, QuerySnapshot snapshots) {
+        boolean modified = false;
+        for (DocumentChange change : snapshots.getDocumentChanges()) {
+            DocumentSnapshot document = change.getDocument();
+            String id = document.getId();
+            if (change.getType() == DocumentChange.Type.REMOVED) {
+                // A document that moved cells may already have been added by its new cell.
+                Integer owner = cellOf.get(id);
+                if (owner != null && owner == cell) {
+                    modified |= exit(id);
+                }
+                continue;
+            }
+
+            T value = isInside(document) ? mapper.apply(document) : null;
+            if (value == null) {
+                modified |= exit(id);
+            } else {
+                if (results.put(id, value) == null) {
+                    entered++;
+                } else {
+                    changed++;
+                }
+                cellOf.put(id, cell);
+                modified = true;
+            }
+        }
+
+        if (!reported[cell]) {
+            reported[cell] = true;
+            unreportedCells--;
+            modified = true;
+        }
+        if (modified && unreportedCells == 0) {
+            Timber.d("Geo query: %d results (%d entered, %d exited, %d changed)",
+                    results.size(), entered, exited, changed);
+            setValue(new LinkedHashMap<>(results));
+        }
+    }
+
+    private boolean exit(String id) {
+        cellOf.remove(id);
+        if (results.remove(id) != null) {
+            exited++;
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isInside(DocumentSnapshot document) {
+        GeoPoint location = document.getGeoPoint(LOCATION_FIELD);
+        if (location == null) {
+            Object fallback = document.get(GEOFIRESTORE_LOCATION_FIELD);
+            if (fallback instanceof GeoPoint) {
+                location = (GeoPoint) fallback;
+            }
+        }
+        return location != null && GeoHash.distanceKm(center, location) <= radiusKm;
+    }
+}
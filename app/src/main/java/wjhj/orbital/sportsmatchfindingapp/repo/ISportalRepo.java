@@ -1,13 +1,17 @@
 package wjhj.orbital.sportsmatchfindingapp.repo;
 
+import androidx.annotation.Nullable;
 import androidx.lifecycle.LiveData;
+import androidx.paging.PagedList;
 
 import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.GeoPoint;
 
 import java.util.List;
 import java.util.Map;
 
 import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
 
 public interface ISportalRepo {
@@ -26,6 +30,12 @@ public interface ISportalRepo {
 
     LiveData<UserProfile> getUser(String userUid);
 
+    LiveData<UserProfile> loadUser(String userUid);
+
+    LiveData<List<UserProfile>> loadUsers(LiveData<List<String>> userUids);
+
+    UserDirectorySearch newUserSearch();
+
     LiveData<List<UserProfile>> selectUsersStartingWith(String field, String queryText);
 
     Task<Void> deleteUser(String userUid);
@@ -38,8 +48,23 @@ public interface ISportalRepo {
 
     LiveData<Game> getGame(String gameId);
 
+    Task<Void> prefetchGame(String gameId, int participants);
+
+    LiveData<GameSummary> getGameSummary(String gameId);
+
+    LiveData<List<GameSummary>> getGameSummaries(LiveData<List<String>> gameIds);
+
     LiveData<Map<String, Game>> getGamesWithFilters(GameSearchFilter filter);
 
+    Task<GameSearchPage> getGamesPage(GameSearchFilter filter, @Nullable GameSearchCursor startAfter,
+                                      int pageSize);
+
+    LiveData<PagedList<GameSummary>> getPagedGamesWithFilters(GameSearchFilter filter);
+
+    LiveData<Map<String, Game>> getGamesInArea(GeoPoint southWest, GeoPoint northEast);
+
+    List<Game> getNearestCachedGames(GeoPoint location, int count);
+
     LiveData<List<Game>> selectGamesStartingWith(String field, String queryText);
 
     Task<Void> deleteGame(String gameId);
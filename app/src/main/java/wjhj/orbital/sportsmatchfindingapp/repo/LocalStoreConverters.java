@@ -0,0 +1,175 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.room.TypeConverter;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+import wjhj.orbital.sportsmatchfindingapp.maps.Country;
+import wjhj.orbital.sportsmatchfindingapp.user.Gender;
+
+// Enums are stored by name() to match how Firestore serializes them.
+@SuppressWarnings("WeakerAccess")
+class LocalStoreConverters {
+
+    @TypeConverter
+    public static String fromGeoPoint(GeoPoint point) {
+        return point == null ? null : point.getLatitude() + "," + point.getLongitude();
+    }
+
+    @TypeConverter
+    public static GeoPoint toGeoPoint(String str) {
+        if (str == null) {
+            return null;
+        }
+        String[] parts = str.split(",");
+        return new GeoPoint(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]));
+    }
+
+    @TypeConverter
+    public static String fromSport(Sport sport) {
+        return sport == null ? null : sport.name();
+    }
+
+    @TypeConverter
+    public static Sport toSport(String str) {
+        return str == null ? null : Sport.valueOf(str);
+    }
+
+    @TypeConverter
+    public static String fromDifficulty(Difficulty difficulty) {
+        return difficulty == null ? null : difficulty.name();
+    }
+
+    @TypeConverter
+    public static Difficulty toDifficulty(String str) {
+        return str == null ? null : Difficulty.valueOf(str);
+    }
+
+    @TypeConverter
+    public static String fromTimeOfDay(TimeOfDay timeOfDay) {
+        return timeOfDay == null ? null : timeOfDay.name();
+    }
+
+    @TypeConverter
+    public static TimeOfDay toTimeOfDay(String str) {
+        return str == null ? null : TimeOfDay.valueOf(str);
+    }
+
+    @TypeConverter
+    public static String fromGender(Gender gender) {
+        return gender == null ? null : gender.name();
+    }
+
+    @TypeConverter
+    public static Gender toGender(String str) {
+        return str == null ? null : Gender.valueOf(str);
+    }
+
+    @TypeConverter
+    public static String fromCountry(Country country) {
+        return country == null ? null : country.name();
+    }
+
+    @TypeConverter
+    public static Country toCountry(String str) {
+        return str == null ? null : Country.valueOf(str);
+    }
+
+    @TypeConverter
+    public static String fromStringList(List<String> list) {
+        return list == null ? null : new JSONArray(list).toString();
+    }
+
+    @TypeConverter
+    public static List<String> toStringList(String str) {
+        if (str == null) {
+            return null;
+        }
+        try {
+            return toList(new JSONArray(str));
+        } catch (JSONException e) {
+            throw new IllegalStateException("Corrupted local store entry: " + str, e);
+        }
+    }
+
+    @TypeConverter
+    public static String fromSportList(List<Sport> sports) {
+        if (sports == null) {
+            return null;
+        }
+        JSONArray array = new JSONArray();
+        for (Sport sport : sports) {
+            array.put(sport.name());
+        }
+        return array.toString();
+    }
+
+    @TypeConverter
+    public static List<Sport> toSportList(String str) {
+        List<String> names = toStringList(str);
+        if (names == null) {
+            return null;
+        }
+        List<Sport> sports = new ArrayList<>();
+        for (String name : names) {
+            sports.add(Sport.valueOf(name));
+        }
+        return sports;
+    }
+
+    @TypeConverter
+    public static String fromGamesMap(Map<String, List<String>> games) {
+        if (games == null) {
+            return null;
+        }
+        JSONObject object = new JSONObject();
+        try {
+            for (Map.Entry<String, List<String>> entry : games.entrySet()) {
+                object.put(entry.getKey(), new JSONArray(entry.getValue()));
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException("Unable to store games map", e);
+        }
+        return object.toString();
+    }
+
+    @TypeConverter
+    public static Map<String, List<String>> toGamesMap(String str) {
+        if (str == null) {
+            return null;
+        }
+        Map<String, List<String>> games = new HashMap<>();
+        try {
+            JSONObject object = new JSONObject(str);
+            Iterator<String> keys = object.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                games.put(key, toList(object.getJSONArray(key)));
+            }
+        } catch (JSONException e) {
+            throw new IllegalStateException("Corrupted local store entry: " + str, e);
+        }
+        return games;
+    }
+
+    private static List<String> toList(JSONArray array) throws JSONException {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < array.length(); i++) {
+            list.add(array.getString(i));
+        }
+        return list;
+    }
+}
@@ -0,0 +1,36 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+@Dao
+interface LocalStoreDao {
+
+    @Query("SELECT * FROM games WHERE uid = :uid")
+    GameEntity getGame(String uid);
+
+    @Query("SELECT * FROM games")
+    List<GameEntity> getAllGames();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void putGames(List<GameEntity> games);
+
+    @Query("SELECT * FROM user_profiles WHERE uid = :uid")
+    UserProfileEntity getUser(String uid);
+
+    @Query("SELECT * FROM user_profiles")
+    List<UserProfileEntity> getAllUsers();
+
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void putUsers(List<UserProfileEntity> users);
+
+    @Query("DELETE FROM games")
+    void clearGames();
+
+    @Query("DELETE FROM user_profiles")
+    void clearUsers();
+}
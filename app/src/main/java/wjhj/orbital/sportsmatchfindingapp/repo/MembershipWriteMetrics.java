@@ -0,0 +1,80 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.os.SystemClock;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts attempts, retries, failures and latency of game membership writes, to see how often
+ * joining and leaving games contend in the field. Thread safe: transaction bodies run on
+ * Firestore's background threads.
+ */
+public class MembershipWriteMetrics {
+    private final String name;
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong attempts = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+    private final AtomicLong totalLatencyMillis = new AtomicLong();
+    private final AtomicLong maxLatencyMillis = new AtomicLong();
+
+    MembershipWriteMetrics(String name) {
+        this.name = name;
+    }
+
+    Sample start() {
+        return new Sample();
+    }
+
+    public long getWrites() {
+        return writes.get();
+    }
+
+    // Transaction bodies re-run by Firestore because of contention.
+    public long getRetries() {
+        return attempts.get() - writes.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    public double getAverageLatencyMillis() {
+        long count = writes.get();
+        return count == 0 ? 0 : (double) totalLatencyMillis.get() / count;
+    }
+
+    public long getMaxLatencyMillis() {
+        return maxLatencyMillis.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "%s: %d writes, %d retries, %d failures, avg %.1fms, max %dms",
+                name, getWrites(), getRetries(), getFailures(), getAverageLatencyMillis(),
+                getMaxLatencyMillis());
+    }
+
+    // One membership write, from the first attempt until it succeeds or fails.
+    class Sample {
+        private final long startMillis = SystemClock.elapsedRealtime();
+
+        // Called at the start of every (re)run of the write.
+        void attempt() {
+            attempts.incrementAndGet();
+        }
+
+        void finish(boolean successful) {
+            long latency = SystemClock.elapsedRealtime() - startMillis;
+            writes.incrementAndGet();
+            totalLatencyMillis.addAndGet(latency);
+            long max;
+            do {
+                max = maxLatencyMillis.get();
+            } while (latency > max && !maxLatencyMillis.compareAndSet(max, latency));
+            if (!successful) {
+                failures.incrementAndGet();
+            }
+        }
+    }
+}
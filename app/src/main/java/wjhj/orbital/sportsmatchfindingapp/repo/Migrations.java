@@ -0,0 +1,24 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.android.gms.tasks.Task;
+import com.google.firebase.firestore.FirebaseFirestore;
+
+/**
+ * Progress of the one-off data migrations, which are run by the admin scripts under scripts/
+ * rather than by clients. Each migration keeps a document under {@link #MIGRATIONS_PATH}, named
+ * after it, that is marked done once every document has been migrated.
+ */
+final class Migrations {
+    static final String MIGRATIONS_PATH = "Migrations";
+
+    private static final String DONE_FIELD = "done";
+
+    private Migrations() {
+    }
+
+    // Whether the named migration has run to completion.
+    static Task<Boolean> isDone(FirebaseFirestore db, String name) {
+        return db.collection(MIGRATIONS_PATH).document(name).get()
+                .continueWith(task -> Boolean.TRUE.equals(task.getResult().getBoolean(DONE_FIELD)));
+    }
+}
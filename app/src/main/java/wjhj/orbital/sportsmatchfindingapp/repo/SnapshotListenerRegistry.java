@@ -0,0 +1,101 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.NonNull;
+import androidx.lifecycle.DefaultLifecycleObserver;
+import androidx.lifecycle.LifecycleOwner;
+import androidx.lifecycle.ProcessLifecycleOwner;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import timber.log.Timber;
+
+/**
+ * Keeps count of every attached {@link FirestoreLiveData} listener. A LiveData counts once for
+ * each snapshot listener it registers, e.g. one per geohash cell of a radius query. Past
+ * {@link #MAX_LISTENERS} the oldest LiveData with no active observers is released until there is
+ * room; if that is not enough, the new LiveData falls back to a single read. All listeners are
+ * detached while the process is in the background and re-attached when it returns. Must be used
+ * from the main thread.
+ */
+class SnapshotListenerRegistry implements DefaultLifecycleObserver {
+    static final int MAX_LISTENERS = 100;
+
+    private static SnapshotListenerRegistry instance;
+
+    private final Set<FirestoreLiveData<?>> attached = new LinkedHashSet<>();
+    private final Set<FirestoreLiveData<?>> suspended = new LinkedHashSet<>();
+    private int listeners;
+    private boolean inBackground;
+
+    static SnapshotListenerRegistry getInstance() {
+        if (instance == null) {
+            instance = new SnapshotListenerRegistry();
+            ProcessLifecycleOwner.get().getLifecycle().addObserver(instance);
+        }
+        return instance;
+    }
+
+    private SnapshotListenerRegistry() {
+    }
+
+    // Returns true, and remembers the LiveData for later, if listeners are currently suspended.
+    boolean suspendIfInBackground(FirestoreLiveData<?> liveData) {
+        if (inBackground) {
+            suspended.add(liveData);
+        }
+        return inBackground;
+    }
+
+    // Returns false if the cap is reached and no idle listener could be released.
+    boolean reserve(FirestoreLiveData<?> liveData) {
+        int needed = liveData.listenerCount();
+        while (listeners + needed > MAX_LISTENERS) {
+            FirestoreLiveData<?> idle = null;
+            for (FirestoreLiveData<?> candidate : attached) {
+                if (!candidate.hasActiveObservers()) {
+                    idle = candidate;
+                    break;
+                }
+            }
+            if (idle == null) {
+                Timber.d("Snapshot listener cap of %d reached, %d needed", MAX_LISTENERS, needed);
+                return false;
+            }
+            idle.detach();
+        }
+        if (attached.add(liveData)) {
+            listeners += needed;
+        }
+        return true;
+    }
+
+    void release(FirestoreLiveData<?> liveData) {
+        if (attached.remove(liveData)) {
+            listeners -= liveData.listenerCount();
+        }
+    }
+
+    @Override
+    public void onStart(@NonNull LifecycleOwner owner) {
+        inBackground = false;
+        Timber.d("Resuming %d snapshot listeners", suspended.size());
+        for (FirestoreLiveData<?> liveData : suspended) {
+            if (liveData.hasActiveObservers()) {
+                liveData.attachIfNeeded();
+            }
+        }
+        suspended.clear();
+    }
+
+    @Override
+    public void onStop(@NonNull LifecycleOwner owner) {
+        inBackground = true;
+        Timber.d("Suspending %d snapshot listeners", attached.size());
+        for (FirestoreLiveData<?> liveData : new ArrayList<>(attached)) {
+            liveData.detach();
+            suspended.add(liveData);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.room.Database;
+import androidx.room.RoomDatabase;
+import androidx.room.TypeConverters;
+
+@Database(entities = {GameEntity.class, UserProfileEntity.class}, version = 2, exportSchema = false)
+@TypeConverters(LocalStoreConverters.class)
+public abstract class SportalDatabase extends RoomDatabase {
+
+    abstract LocalStoreDao localStoreDao();
+}
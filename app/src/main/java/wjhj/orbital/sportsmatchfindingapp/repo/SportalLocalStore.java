@@ -0,0 +1,151 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+import androidx.room.Room;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+import java9.util.function.Consumer;
+import java9.util.function.Function;
+import timber.log.Timber;
+
+/**
+ * Disk backed copy of the games and user profiles last seen from Firestore. All disk access
+ * happens on a single background thread; results are delivered on the main thread.
+ */
+class SportalLocalStore {
+    private static final String DATABASE_NAME = "sportal-local-store";
+
+    private static volatile SportalLocalStore instance;
+
+    private final LocalStoreDao dao;
+    private final Executor diskIO;
+    private final Handler mainThreadHandler;
+
+    static void init(Context context) {
+        if (instance == null) {
+            synchronized (SportalLocalStore.class) {
+                if (instance == null) {
+                    instance = new SportalLocalStore(context.getApplicationContext());
+                }
+            }
+        }
+    }
+
+    static SportalLocalStore getInstance() {
+        if (instance == null) {
+            throw new IllegalStateException("SportalRepo.init(Context) has not been called");
+        }
+        return instance;
+    }
+
+    private SportalLocalStore(Context context) {
+        SportalDatabase database = Room.databaseBuilder(context, SportalDatabase.class, DATABASE_NAME)
+                .fallbackToDestructiveMigration()
+                .build();
+        dao = database.localStoreDao();
+        diskIO = Executors.newSingleThreadExecutor();
+        mainThreadHandler = new Handler(Looper.getMainLooper());
+    }
+
+    // Emits the stored game once, or null if it has never been cached.
+    LiveData<GameDataModel> loadGame(String uid) {
+        MutableLiveData<GameDataModel> liveData = new MutableLiveData<>();
+        diskIO.execute(() -> {
+            GameEntity entity = dao.getGame(uid);
+            liveData.postValue(entity == null ? null : entity.data);
+        });
+        return liveData;
+    }
+
+    /**
+     * Reads every stored game. The games are passed to {@code inBackground} on the disk thread,
+     * for work too slow for the main thread, and its result to {@code callback} on the main thread.
+     */
+    <T> void loadAllGames(Function<List<GameDataModel>, T> inBackground, Consumer<T> callback) {
+        diskIO.execute(() -> {
+            List<GameDataModel> games = new ArrayList<>();
+            for (GameEntity entity : dao.getAllGames()) {
+                games.add(entity.data);
+            }
+            T result = inBackground.apply(games);
+            mainThreadHandler.post(() -> callback.accept(result));
+        });
+    }
+
+    void saveGame(GameDataModel game) {
+        saveGames(Collections.singletonList(game));
+    }
+
+    void saveGames(List<GameDataModel> games) {
+        List<GameEntity> entities = new ArrayList<>();
+        for (GameDataModel game : games) {
+            if (game != null && game.getUid() != null) {
+                entities.add(new GameEntity(game.getUid(), game));
+            }
+        }
+        diskIO.execute(() -> {
+            try {
+                dao.putGames(entities);
+            } catch (RuntimeException e) {
+                Timber.d(e, "local store write error");
+            }
+        });
+    }
+
+    // Emits the stored profile once, or null if it has never been cached.
+    LiveData<UserProfileDataModel> loadUser(String uid) {
+        MutableLiveData<UserProfileDataModel> liveData = new MutableLiveData<>();
+        diskIO.execute(() -> {
+            UserProfileEntity entity = dao.getUser(uid);
+            liveData.postValue(entity == null ? null : entity.data);
+        });
+        return liveData;
+    }
+
+    void loadAllUsers(Consumer<List<UserProfileDataModel>> callback) {
+        diskIO.execute(() -> {
+            List<UserProfileDataModel> users = new ArrayList<>();
+            for (UserProfileEntity entity : dao.getAllUsers()) {
+                users.add(entity.data);
+            }
+            mainThreadHandler.post(() -> callback.accept(users));
+        });
+    }
+
+    void saveUser(UserProfileDataModel user) {
+        saveUsers(Collections.singletonList(user));
+    }
+
+    void saveUsers(List<UserProfileDataModel> users) {
+        List<UserProfileEntity> entities = new ArrayList<>();
+        for (UserProfileDataModel user : users) {
+            if (user != null && user.getUid() != null) {
+                entities.add(new UserProfileEntity(user.getUid(), user));
+            }
+        }
+        diskIO.execute(() -> {
+            try {
+                dao.putUsers(entities);
+            } catch (RuntimeException e) {
+                Timber.d(e, "local store write error");
+            }
+        });
+    }
+
+    void clear() {
+        diskIO.execute(() -> {
+            dao.clearGames();
+            dao.clearUsers();
+        });
+    }
+}
@@ -1,8 +1,9 @@
 package wjhj.orbital.sportsmatchfindingapp.repo;
 
+import android.content.ComponentCallbacks2;
+import android.content.Context;
 import android.net.Uri;
 import android.os.Parcelable;
-import android.util.Log;
 
 import androidx.annotation.NonNull;
 import androidx.annotation.Nullable;
@@ -10,17 +11,24 @@ import androidx.lifecycle.LiveData;
 import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
+import androidx.paging.DataSource;
+import androidx.paging.LivePagedListBuilder;
+import androidx.paging.PagedList;
 
 import com.google.android.gms.tasks.Task;
 import com.google.android.gms.tasks.Tasks;
 import com.google.common.base.Optional;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
 import com.google.common.cache.LoadingCache;
+import com.google.common.cache.RemovalNotification;
 import com.google.common.collect.ImmutableList;
 import com.google.firebase.firestore.CollectionReference;
 import com.google.firebase.firestore.DocumentReference;
 import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
 import com.google.firebase.firestore.FieldValue;
 import com.google.firebase.firestore.FirebaseFirestore;
 import com.google.firebase.firestore.FirebaseFirestoreException;
@@ -33,17 +41,12 @@ import com.google.firebase.firestore.WriteBatch;
 import com.google.firebase.firestore.auth.User;
 
 import org.imperiumlabs.geofirestore.GeoFirestore;
-import org.imperiumlabs.geofirestore.GeoQuery;
-import org.imperiumlabs.geofirestore.listeners.GeoQueryDataEventListener;
-import org.jetbrains.annotations.NotNull;
 import org.threeten.bp.Duration;
-import org.threeten.bp.LocalDate;
 import org.threeten.bp.LocalTime;
 
 import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
@@ -51,25 +54,56 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
 import java.util.logging.Filter;
 
-import java9.util.stream.StreamSupport;
+import java9.util.function.Consumer;
 import timber.log.Timber;
-import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
 import wjhj.orbital.sportsmatchfindingapp.game.Game;
 import wjhj.orbital.sportsmatchfindingapp.game.GameStatus;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
-import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
 import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
+import wjhj.orbital.sportsmatchfindingapp.utils.BatchTransformations;
 
 public class SportalRepo implements ISportalRepo {
-    private static final String DATA_DEBUG = "SportalRepo";
     private static final String USERS_PATH = "Users";
     private static final String GAMES_PATH = "Games";
+    private static final String GAME_SUMMARIES_PATH = "GameSummaries";
+    private static final String MEMBERSHIPS_PATH = "gameMemberships";
+    // Set on a user document once its embedded games map has been copied to MEMBERSHIPS_PATH.
+    private static final String MEMBERSHIPS_MIGRATED_FIELD = GameMembershipPager.MIGRATED_FIELD;
+    // Run once by scripts/backfill-game-times.js, which marks it done for every client.
+    private static final String GAME_TIMES_MIGRATION = "gameTimes";
+    private static final int MAX_BATCH_WRITES = 500;
+    // Firestore whereIn limit, for reading the games of a membership by document id.
+    private static final int MAX_IDS_PER_READ = 10;
+    private static final int RECENT_SEARCHES = 20;
+    private static final int RECENT_SEARCH_TTL_MINUTES = 5;
 
     private final FirebaseFirestore db;
+    private final SportalLocalStore localStore;
+    private final GameFilterIndex gameIndex;
+    private final GameSpatialIndex gameLocations;
+    private final UserDirectoryIndex userDirectory;
+    // The one instance of each game and user read so far; the caches below only observe them.
+    private final EntityStore<Game> gameStore;
+    private final EntityStore<UserProfile> userStore;
+    private int geoQueryExtraBits;
+    // Searches use the numeric time fields only once every game has them.
+    private volatile boolean gameTimesBackfilled;
     private final LoadingCache<String, LiveData<UserProfile>> mUserProfilesCache;
     private final LoadingCache<String, LiveData<Game>> mGamesCache;
+    private final LoadingCache<String, LiveData<GameSummary>> mGameSummariesCache;
+    // Latest results of recent searches, shown at once when one of them is run again.
+    private final Cache<GameSearchKey, Map<String, Game>> mSearchResultsCache;
+    // Games whose missing summary is currently being rebuilt from the full game.
+    private final Set<String> mSummaryBackfills = new HashSet<>();
+    private final UserProfileBatchLoader mUserProfileLoader;
+    // Document listeners owned by the cache entries above, keyed by document path.
+    private final Map<String, FirestoreLiveData<?>> mCachedListeners = new HashMap<>();
+    private final MembershipWriteMetrics mMembershipMetrics =
+            new MembershipWriteMetrics("join/leave");
 
     private static volatile SportalRepo instance;
+    private static CacheBudget cacheBudget = CacheBudget.defaults();
 
     public static SportalRepo getInstance() {
         if (instance == null) {
@@ -82,44 +116,127 @@ public class SportalRepo implements ISportalRepo {
         return instance;
     }
 
+    // Must be called once from the Application before getInstance() is used.
+    public static void init(Context context) {
+        cacheBudget = CacheBudget.forContext(context);
+        SportalLocalStore.init(context);
+    }
+
     private SportalRepo() {
         db = FirebaseFirestore.getInstance();
+        localStore = SportalLocalStore.getInstance();
+        gameIndex = new GameFilterIndex();
+        gameLocations = new GameSpatialIndex();
+        // The game indexes only cover stored games, so they shrink with the store.
+        gameStore = new EntityStore<>(Game::getUid, CacheBudget::weightBytes, cacheBudget.gameBytes(),
+                gameId -> {
+                    gameIndex.remove(gameId);
+                    gameLocations.remove(gameId);
+                });
+        userStore = new EntityStore<>(UserProfile::getUid, CacheBudget::weightBytes,
+                cacheBudget.userProfileBytes(), uid -> {
+                });
+        // Mapping and indexing every stored game is too slow for startup on the main thread. The
+        // indexes are thread safe; the store is not, so it is filled once back on the main thread.
+        localStore.loadAllGames(cached -> {
+            List<Game> games = new ArrayList<>();
+            for (GameDataModel dataModel : cached) {
+                games.add(toGame(dataModel));
+            }
+            gameIndex.putAllIfAbsent(games);
+            gameLocations.putAllIfAbsent(games);
+            return games;
+        }, games -> {
+            for (Game game : games) {
+                gameStore.putIfAbsent(game);
+            }
+        });
+        Migrations.isDone(db, GAME_TIMES_MIGRATION)
+                .addOnSuccessListener(done -> gameTimesBackfilled = done);
+        userDirectory = new UserDirectoryIndex();
+        localStore.loadAllUsers(cached -> {
+            List<UserProfile> users = new ArrayList<>();
+            for (UserProfileDataModel dataModel : cached) {
+                users.add(userStore.putIfAbsent(toUserProfile(dataModel)));
+            }
+            userDirectory.putAll(users);
+        });
         mUserProfilesCache = CacheBuilder.newBuilder()
-                .maximumSize(100)
+                .maximumSize(cacheBudget.views())
                 .expireAfterAccess(10, TimeUnit.MINUTES)
+                .recordStats()
+                .removalListener(notification -> {
+                    detachCachedListener(USERS_PATH, notification);
+                    userStore.release(notification.getKey());
+                })
                 .build(new CacheLoader<String, LiveData<UserProfile>>() {
                     @Override
                     public LiveData<UserProfile> load(@NonNull String key) {
                         DocumentReference ref = db.collection(USERS_PATH).document(key);
-                        return Transformations.map(convertToLiveData(ref, UserProfileDataModel.class),
-                                SportalRepo.this::toUserProfile);
+                        return storeBacked(userStore.hold(key),
+                                localStore.loadUser(key),
+                                dataModel -> userStore.putIfAbsent(toUserProfile(dataModel)),
+                                cachedListener(ref, UserProfileDataModel.class),
+                                dataModel -> {
+                                    localStore.saveUser(dataModel);
+                                    toStoredUserProfile(dataModel);
+                                });
                     }
                 });
         mGamesCache = CacheBuilder.newBuilder()
-                .maximumSize(200)
+                .maximumSize(cacheBudget.views())
                 .expireAfterAccess(15, TimeUnit.MINUTES)
+                .recordStats()
+                .removalListener(notification -> {
+                    detachCachedListener(GAMES_PATH, notification);
+                    gameStore.release(notification.getKey());
+                })
                 .build(new CacheLoader<String, LiveData<Game>>() {
                     @Override
                     public LiveData<Game> load(@NonNull String key) {
                         DocumentReference ref = db.collection(GAMES_PATH).document(key);
-                        ref.get().addOnSuccessListener(snapshot -> {
-                            if (snapshot.exists()) {
-                                GameDataModel dataModel = snapshot.toObject(GameDataModel.class);
-                                if (dataModel != null && toGame(dataModel).isComplete()) {
-                                    changeGameStatus(GameStatus.COMPLETED, dataModel);
-                                }
+                        return storeBacked(gameStore.hold(key),
+                                localStore.loadGame(key),
+                                dataModel -> indexGame(gameStore.putIfAbsent(toGame(dataModel))),
+                                cachedListener(ref, GameDataModel.class),
+                                dataModel -> {
+                                    localStore.saveGame(dataModel);
+                                    toIndexedGame(dataModel);
+                                });
+                    }
+                });
+        mGameSummariesCache = CacheBuilder.newBuilder()
+                .maximumSize(cacheBudget.gameSummaries())
+                .expireAfterAccess(15, TimeUnit.MINUTES)
+                .recordStats()
+                .removalListener(
+                        notification -> detachCachedListener(GAME_SUMMARIES_PATH, notification))
+                .build(new CacheLoader<String, LiveData<GameSummary>>() {
+                    @Override
+                    public LiveData<GameSummary> load(@NonNull String key) {
+                        DocumentReference ref = db.collection(GAME_SUMMARIES_PATH).document(key);
+                        FirestoreLiveData<GameSummaryDataModel> dataModel = FirestoreLiveData.of(ref,
+                                GameSummaryDataModel.class, () -> backfillGameSummary(key));
+                        mCachedListeners.put(ref.getPath(), dataModel);
+
+                        MediatorLiveData<GameSummary> summary = new MediatorLiveData<>();
+                        summary.addSource(dataModel, value -> {
+                            if (value.isIncomplete()) {
+                                backfillGameSummary(key);
+                            } else {
+                                summary.setValue(toGameSummary(value));
                             }
                         });
-                        return Transformations.map(convertToLiveData(ref, GameDataModel.class),
-                                SportalRepo.this::toGame);
+                        return summary;
                     }
                 });
-    }
-
-    @SuppressWarnings("SameParameterValue")
-    private void changeGameStatus(GameStatus status, GameDataModel dataModel) {
-        StreamSupport.stream(dataModel.getParticipatingUids())
-                .forEach(id -> changeGameStatusForUser(status, dataModel.getUid(), id));
+        mSearchResultsCache = CacheBuilder.newBuilder()
+                .maximumSize(RECENT_SEARCHES)
+                .expireAfterWrite(RECENT_SEARCH_TTL_MINUTES, TimeUnit.MINUTES)
+                .recordStats()
+                .build();
+        mUserProfileLoader = new UserProfileBatchLoader(db.collection(USERS_PATH),
+                this::cachedUser, this::toStoredUserProfile, localStore::saveUsers);
     }
 
     @Override
@@ -203,13 +320,66 @@ public class SportalRepo implements ISportalRepo {
         return mUserProfilesCache.getUnchecked(userUid);
     }
 
+    /**
+     * Like getUser, for lists of profiles such as friends or participants. The first read is
+     * batched with the other profiles requested in the same frame; once the profile is resolved
+     * it follows later changes through getUser. A missing profile emits null and is left out.
+     */
+    @Override
+    public LiveData<UserProfile> loadUser(String userUid) {
+        LiveData<UserProfile> live = mUserProfilesCache.getIfPresent(userUid);
+        if (live != null) {
+            return live;
+        }
+
+        MediatorLiveData<UserProfile> result = new MediatorLiveData<>();
+        LiveData<UserProfile> firstRead = mUserProfileLoader.load(userUid);
+        result.addSource(firstRead, profile -> {
+            result.removeSource(firstRead);
+            result.setValue(profile);
+            if (profile != null) {
+                // The batch has stored the profile, so getUser starts from it without a read.
+                result.addSource(getUser(userUid), result::setValue);
+            }
+        });
+        return result;
+    }
+
+    @Override
+    public LiveData<List<UserProfile>> loadUsers(LiveData<List<String>> userUids) {
+        return BatchTransformations.coalescingSwitchMapList(userUids, this::loadUser, UserProfile::getUid);
+    }
+
+
+    @Override
+    public UserDirectorySearch newUserSearch() {
+        return new UserDirectorySearch(userDirectory, this::searchUsersOnServer);
+    }
+
+    // One-shot prefix query on display names; the results also land in the user directory.
+    private Task<List<UserProfile>> searchUsersOnServer(String queryText) {
+        long readVersion = userStore.version();
+        return queryStartingWith(USERS_PATH, "displayName", queryText)
+                .limit(UserDirectorySearch.MAX_RESULTS)
+                .get()
+                .continueWith(task -> {
+                    List<UserProfileDataModel> dataModels =
+                            DocumentMappers.toObjects(task.getResult(), UserProfileDataModel.class);
+                    localStore.saveUsers(dataModels);
+                    List<UserProfile> users = new ArrayList<>();
+                    for (UserProfileDataModel dataModel : dataModels) {
+                        users.add(userStore.put(toUserProfile(dataModel), readVersion));
+                    }
+                    return users;
+                });
+    }
 
     @Override
     public LiveData<List<UserProfile>> selectUsersStartingWith(String field, String queryText) {
         LiveData<List<UserProfileDataModel>> listLiveData = convertToLiveData(
                 queryStartingWith(USERS_PATH, field, queryText), UserProfileDataModel.class);
 
-        return Transformations.map(listLiveData, this::toUserProfiles);
+        return Transformations.map(listLiveData, this::toStoredUserProfiles);
     }
 
     @Override
@@ -234,14 +404,19 @@ public class SportalRepo implements ISportalRepo {
 
         DocumentReference gameDocRef = db.collection(GAMES_PATH).document(gameUid);
         batch.set(gameDocRef, dataModel);
+        batch.set(db.collection(GAME_SUMMARIES_PATH).document(gameUid), new GameSummaryDataModel(game));
 
         CollectionReference users = db.collection(USERS_PATH);
         DocumentReference creatorDocRef = users.document(game.getCreatorUid());
         batch.update(creatorDocRef, "games.pending", FieldValue.arrayUnion(gameUid));
+        batch.set(membershipRef(game.getCreatorUid(), gameUid),
+                new GameMembershipDataModel(GameStatus.PENDING, startTimeMillis(game)));
 
         for (String participantUid : game.getParticipatingUids()) {
             DocumentReference participantDocRef = users.document(participantUid);
             batch.update(participantDocRef, "games.pending", FieldValue.arrayUnion(gameUid));
+            batch.set(membershipRef(participantUid, gameUid),
+                    new GameMembershipDataModel(GameStatus.PENDING, startTimeMillis(game)));
         }
 
         return batch.commit()
@@ -256,142 +431,107 @@ public class SportalRepo implements ISportalRepo {
     public Task<Void> updateGame(String gameId, Game game) {
         CollectionReference colRef = db.collection(GAMES_PATH);
         DocumentReference docRef = colRef.document(gameId);
+        DocumentReference summaryRef = db.collection(GAME_SUMMARIES_PATH).document(gameId);
         return db.runTransaction(transaction -> {
-            GameDataModel oldRecord = transaction.get(docRef).toObject(GameDataModel.class);
+            GameDataModel oldRecord = DocumentMappers.toGameDataModel(transaction.get(docRef));
 
             if (oldRecord != null && oldRecord.getParticipatingUids() != null) {
                 Game newGame = game.withParticipatingUids(oldRecord.getParticipatingUids());
                 GameDataModel newRecord = toGameDataModel(newGame);
                 transaction.set(docRef, newRecord, SetOptions.merge());
+                transaction.set(summaryRef, new GameSummaryDataModel(newGame));
+
+                // The start time may have moved; keep every participant's membership in step.
+                Map<String, Object> startTime = new HashMap<>();
+                startTime.put(GameMembershipDataModel.START_TIME_FIELD, startTimeMillis(game));
+                for (String participantUid : oldRecord.getParticipatingUids()) {
+                    transaction.set(membershipRef(participantUid, gameId), startTime, SetOptions.merge());
+                }
             } else {
                 GameDataModel newRecord = toGameDataModel(game);
                 transaction.set(docRef, newRecord, SetOptions.merge());
+                transaction.set(summaryRef, new GameSummaryDataModel(game));
             }
             new GeoFirestore(colRef).setLocation(game.getUid(), game.getLocation(), Timber::d);
             return null;
         });
     }
 
-    public Task<Void> addUserToGame(String userId, String gameId) {
+    /**
+     * Adds the user to the game with array updates on the two fields involved. Only the game is
+     * read, to check that it still has room, so concurrent profile edits never conflict with a
+     * join. Fails with FAILED_PRECONDITION if the game is full.
+     */
+    public Task<Void> joinGame(String userId, String gameId) {
         DocumentReference gameDocRef = db.collection(GAMES_PATH).document(gameId);
         DocumentReference userDocRef = db.collection(USERS_PATH).document(userId);
-        return db.runTransaction(transaction -> {
-
-            boolean joinedGameSuccessfully = false;
-            GameDataModel oldRecord = transaction.get(gameDocRef).toObject(GameDataModel.class);
-            UserProfileDataModel user = transaction.get(userDocRef).toObject(UserProfileDataModel.class);
-
-            if (oldRecord != null && oldRecord.getParticipatingUids() != null) {
-                List<String> participants = oldRecord.getParticipatingUids();
-                participants.add(userId);
-                Game newGame = toGame(oldRecord).withParticipatingUids(participants);
-                GameDataModel newRecord = toGameDataModel(newGame);
-                transaction.set(gameDocRef, newRecord);
-                joinedGameSuccessfully = true;
-
-            } else if (oldRecord != null) {
-                Game newGame = toGame(oldRecord).withParticipatingUids(userId);
-                GameDataModel newRecord = toGameDataModel(newGame);
-                transaction.set(gameDocRef, newRecord);
-                joinedGameSuccessfully = true;
+        MembershipWriteMetrics.Sample sample = mMembershipMetrics.start();
+
+        Task<Void> task = db.runTransaction(transaction -> {
+            sample.attempt();
+            GameDataModel game = DocumentMappers.toGameDataModel(transaction.get(gameDocRef));
+            if (game == null) {
+                throw new FirebaseFirestoreException("Game " + gameId + " does not exist",
+                        FirebaseFirestoreException.Code.NOT_FOUND);
+            }
+            List<String> participants = orEmptyList(game.getParticipatingUids());
+            if (!participants.contains(userId) && participants.size() >= game.getMaxPlayers()) {
+                throw new FirebaseFirestoreException("Game " + gameId + " is full",
+                        FirebaseFirestoreException.Code.FAILED_PRECONDITION);
             }
 
-            if (joinedGameSuccessfully && user != null && user.getGames() != null) {
-                Log.d("hi", "hihi");
-                Map<String, List<String>> oldGamesList = user.getGames();
-                Map<GameStatus, List<String>> newGamesList = new EnumMap<>(GameStatus.class);
-
-                if (oldGamesList.get("confirmed") != null) {
-                    newGamesList.put(GameStatus.CONFIRMED, oldGamesList.get("confirmed"));
-                } else {
-                    newGamesList.put(GameStatus.CONFIRMED, new ArrayList<>());
-                }
-
-                if (oldGamesList.get("completed") != null) {
-                    newGamesList.put(GameStatus.COMPLETED, oldGamesList.get("completed"));
-                } else {
-                    newGamesList.put(GameStatus.COMPLETED, new ArrayList<>());
-                }
-
-                if (oldGamesList.get("pending") != null) {
-                    List<String> pending = oldGamesList.get("pending");
-                    pending.add(gameId);
-                    newGamesList.put(GameStatus.PENDING, pending);
-                } else {
-                    List<String> pending = new ArrayList<>();
-                    pending.add(gameId);
-                    newGamesList.put(GameStatus.PENDING, pending);
-                }
-                UserProfile updatedUser = toUserProfile(user).withGames(newGamesList);
-                transaction.set(userDocRef, toUserProfileDataModel(updatedUser));
+            List<String> newParticipants = new ArrayList<>(participants);
+            if (!newParticipants.contains(userId)) {
+                newParticipants.add(userId);
             }
+            Game joined = toGame(game).withParticipatingUids(newParticipants);
+
+            transaction.update(gameDocRef, "participatingUids", FieldValue.arrayUnion(userId));
+            transaction.update(userDocRef, "games." + GameStatus.PENDING, FieldValue.arrayUnion(gameId));
+            transaction.set(membershipRef(userId, gameId),
+                    new GameMembershipDataModel(GameStatus.PENDING, startTimeMillis(joined)));
+            // The game was read anyway, so the summary gets the exact count rather than an increment.
+            transaction.set(db.collection(GAME_SUMMARIES_PATH).document(gameId),
+                    new GameSummaryDataModel(joined));
             return null;
         });
+        return task.addOnCompleteListener(result -> sample.finish(result.isSuccessful()));
     }
 
-    public Task<Void> removeUserFromGame(String userId, String gameId) {
+    // The game is read so that the summary gets the exact count, as in joinGame. Leaving a game
+    // the user is not in, or one that no longer exists, only cleans up the user's side.
+    public Task<Void> leaveGame(String userId, String gameId) {
         DocumentReference gameDocRef = db.collection(GAMES_PATH).document(gameId);
         DocumentReference userDocRef = db.collection(USERS_PATH).document(userId);
-
-        return db.runTransaction(transaction -> {
-            boolean removedSuccessfully = false;
-            GameDataModel oldRecord = transaction.get(gameDocRef).toObject(GameDataModel.class);
-            UserProfileDataModel user = transaction.get(userDocRef).toObject(UserProfileDataModel.class);
-
-            if (oldRecord != null && oldRecord.getParticipatingUids() != null) {
-                List<String> participants = oldRecord.getParticipatingUids();
-                participants.remove(userId);
-                Game newGame = toGame(oldRecord).withParticipatingUids(participants);
-                GameDataModel newRecord = toGameDataModel(newGame);
-                transaction.set(gameDocRef, newRecord);
-                removedSuccessfully = true;
-            }
-
-            if (removedSuccessfully && user != null) {
-                Map<String, List<String>> oldGamesList = user.getGames();
-                Map<GameStatus, List<String>> newGamesList = new EnumMap<>(GameStatus.class);
-
-                if (oldGamesList.get("confirmed") != null) {
-                    List<String> confirmed = oldGamesList.get("confirmed");
-                    if (confirmed.contains(gameId)) {
-                        confirmed.remove(gameId);
-                        newGamesList.put(GameStatus.CONFIRMED, confirmed);
-                    } else {
-                        newGamesList.put(GameStatus.CONFIRMED, confirmed);
-                    }
-                } else {
-                    newGamesList.put(GameStatus.CONFIRMED, new ArrayList<>());
-                }
-
-                if (oldGamesList.get("completed") != null) {
-                    List<String> completed = oldGamesList.get("completed");
-                    if (completed.contains(gameId)) {
-                        completed.remove(gameId);
-                        newGamesList.put(GameStatus.COMPLETED, completed);
-                    } else {
-                        newGamesList.put(GameStatus.COMPLETED, completed);
-                    }
-                } else {
-                    newGamesList.put(GameStatus.COMPLETED, new ArrayList<>());
-                }
-
-                if (oldGamesList.get("pending") != null) {
-                    List<String> pending = oldGamesList.get("pending");
-                    if (pending.contains(gameId)) {
-                        pending.remove(gameId);
-                        newGamesList.put(GameStatus.PENDING, pending);
-                    } else {
-                        newGamesList.put(GameStatus.PENDING, pending);
-                    }
-                } else {
-                    newGamesList.put(GameStatus.PENDING, new ArrayList<>());
-                }
-
-                UserProfile updatedUser = toUserProfile(user).withGames(newGamesList);
-                transaction.set(userDocRef, toUserProfileDataModel(updatedUser));
+        MembershipWriteMetrics.Sample sample = mMembershipMetrics.start();
+
+        Task<Void> task = db.runTransaction(transaction -> {
+            sample.attempt();
+            GameDataModel game = DocumentMappers.toGameDataModel(transaction.get(gameDocRef));
+            List<String> participants = game == null
+                    ? new ArrayList<>() : orEmptyList(game.getParticipatingUids());
+            if (participants.contains(userId)) {
+                List<String> newParticipants = new ArrayList<>(participants);
+                newParticipants.remove(userId);
+                Game left = toGame(game).withParticipatingUids(newParticipants);
+
+                transaction.update(gameDocRef, "participatingUids", FieldValue.arrayRemove(userId));
+                transaction.set(db.collection(GAME_SUMMARIES_PATH).document(gameId),
+                        new GameSummaryDataModel(left));
             }
+            transaction.update(userDocRef,
+                    "games." + GameStatus.PENDING, FieldValue.arrayRemove(gameId),
+                    "games." + GameStatus.CONFIRMED, FieldValue.arrayRemove(gameId),
+                    "games." + GameStatus.COMPLETED, FieldValue.arrayRemove(gameId));
+            transaction.delete(membershipRef(userId, gameId));
             return null;
         });
+        return task.addOnCompleteListener(result -> sample.finish(result.isSuccessful()));
+    }
+
+    // Attempts, retries and latency of joinGame and leaveGame.
+    public MembershipWriteMetrics getMembershipMetrics() {
+        return mMembershipMetrics;
     }
 
     @Override
@@ -399,225 +539,283 @@ public class SportalRepo implements ISportalRepo {
         return mGamesCache.getUnchecked(gameID);
     }
 
-    public LiveData<List<UserProfile>> getParticipatingUsers(String gameId) {
-        LiveData<List<String>> listOfUserIds =
-                Transformations.map(getGame(gameId), Game::getParticipatingUids);
-
-        MediatorLiveData<ConcurrentHashMap<String, UserProfile>> participants = new MediatorLiveData<>();
-        ConcurrentHashMap<String, UserProfile> profiles = new ConcurrentHashMap<>();
-        participants.setValue(profiles);
+    /**
+     * Reads a game, its creator and its first participants into the stores ahead of the game
+     * being opened, so that its screen starts from stored values. Games and users already stored
+     * are not read again. The reads cannot be abandoned once started.
+     */
+    @Override
+    public Task<Void> prefetchGame(String gameId, int participants) {
+        Game stored = gameStore.peek(gameId);
+        Task<Game> game;
+        if (stored != null) {
+            game = Tasks.forResult(stored);
+        } else {
+            long readVersion = gameStore.version();
+            game = db.collection(GAMES_PATH).document(gameId).get().continueWith(task -> {
+                GameDataModel dataModel = DocumentMappers.toGameDataModel(task.getResult());
+                if (dataModel == null) {
+                    return null;
+                }
+                localStore.saveGame(dataModel);
+                return indexGame(gameStore.put(toGame(dataModel), readVersion));
+            });
+        }
 
-        participants.addSource(listOfUserIds, list -> {
-            for (String existingUser : profiles.keySet()) {
-                if (!list.contains(existingUser)) {
-                    profiles.remove(existingUser);
+        return game.continueWithTask(task -> {
+            Game prefetched = task.getResult();
+            if (prefetched == null) {
+                return Tasks.forResult((Void) null);
+            }
+            List<String> uids = new ArrayList<>();
+            uids.add(prefetched.getCreatorUid());
+            for (String uid : prefetched.getParticipatingUids()) {
+                if (uids.size() > participants || uids.size() == UserProfileBatchLoader.MAX_CHUNK_SIZE) {
+                    break;
+                }
+                if (!uids.contains(uid)) {
+                    uids.add(uid);
                 }
             }
-
-            List<Task<DocumentSnapshot>> tasks = new ArrayList<>();
-            for (String uid : list) {
-                Task<DocumentSnapshot> task = db.collection(USERS_PATH)
-                        .document(uid)
-                        .get();
-                task.addOnSuccessListener(snapshot -> {
-                    UserProfileDataModel profile = snapshot.toObject(UserProfileDataModel.class);
-                    if (profile != null) {
-                        profiles.put(uid, toUserProfile(profile));
-                    } else {
-                        Log.d("hi", snapshot.toString());
-                    }
-                });
-                tasks.add(task);
+            List<String> missing = new ArrayList<>();
+            for (String uid : uids) {
+                if (userStore.peek(uid) == null) {
+                    missing.add(uid);
+                }
+            }
+            if (missing.isEmpty()) {
+                return Tasks.forResult((Void) null);
             }
 
-            Tasks.whenAllSuccess(tasks).addOnSuccessListener(results -> participants.setValue(profiles));
+            long readVersion = userStore.version();
+            return db.collection(USERS_PATH)
+                    .whereIn(FieldPath.documentId(), missing)
+                    .get()
+                    .continueWith(users -> {
+                        List<UserProfileDataModel> dataModels =
+                                DocumentMappers.toObjects(users.getResult(), UserProfileDataModel.class);
+                        localStore.saveUsers(dataModels);
+                        for (UserProfileDataModel dataModel : dataModels) {
+                            userStore.put(toUserProfile(dataModel), readVersion);
+                        }
+                        return null;
+                    });
         });
+    }
 
-        return Transformations.map(participants, x -> new ArrayList<>(x.values()));
-    }
-
-    private boolean checkGameWithFilters(Game game, GameSearchFilter filter) {
-        List<Sport> sportQuery = Optional.fromNullable(filter.getSportQuery())
-                .or(new ArrayList<>());
-        List<Difficulty> skillLevelQuery = Optional.fromNullable(filter.getSkillLevelQuery())
-                .or(new ArrayList<>());
-        List<TimeOfDay> timeOfDayQuery = Optional.fromNullable(filter.getTimeOfDayQuery())
-                .or(new ArrayList<>());
-        String nameQuery = Optional.fromNullable(filter.getNameQuery()).or("");
-
-        for (Sport sport : sportQuery) {
-            for (Difficulty skillLevel : skillLevelQuery) {
-                for (TimeOfDay timeOfDay : timeOfDayQuery) {
-                    boolean sameSport = sport == game.getSport();
-                    boolean sameSkillLevel = skillLevel == game.getSkillLevel();
-                    boolean nameMatch = game.getGameName().contains(nameQuery);
-                    boolean timeMatch;
-                    if (timeOfDay != TimeOfDay.NIGHT) {
-                        timeMatch = game.getTime().isAfter(timeOfDay.getStartTime().minusMinutes(1)) &&
-                                game.getTime().isBefore((timeOfDay.getEndTime().plusMinutes(1)));
-                    } else {
-                        timeMatch = (game.getTime().isAfter(timeOfDay.getStartTime().minusMinutes(1)) &&
-                                game.getTime().isBefore(LocalTime.of(0, 0))) ||
-                                (game.getTime().isAfter(LocalTime.of(23, 59)) &&
-                                        game.getTime().isBefore(timeOfDay.getEndTime().plusMinutes(1)));
-                    }
-                    if (sameSport && sameSkillLevel && nameMatch && timeMatch) {
-                        return true;
-                    }
-                }
-            }
-        }
-        return false;
+    // Card-sized view of a game; use getGame only when the whole game is shown.
+    @Override
+    public LiveData<GameSummary> getGameSummary(String gameId) {
+        return mGameSummariesCache.getUnchecked(gameId);
+    }
+
+    @Override
+    public LiveData<List<GameSummary>> getGameSummaries(LiveData<List<String>> gameIds) {
+        return BatchTransformations.coalescingSwitchMapList(gameIds, this::getGameSummary, GameSummary::getUid);
+    }
+
+    public LiveData<List<UserProfile>> getParticipatingUsers(String gameId) {
+        return loadUsers(Transformations.map(getGame(gameId), Game::getParticipatingUids));
     }
 
     @Override
     public LiveData<Map<String, Game>> getGamesWithFilters(GameSearchFilter filter) {
-        Log.d("hi", "Filtering started...");
         CollectionReference gamesRef = FirebaseFirestore.getInstance().collection("Games");
-        GeoFirestore geoFirestore = new GeoFirestore(gamesRef);
+        // The filter may be changed in place later, so the key is taken now.
+        GameSearchKey key = GameSearchKey.of(filter);
+        Map<String, Game> recent = mSearchResultsCache.getIfPresent(key);
 
         if (filter.hasLocationQuery()) {
-            Log.d("hi", "has location");
-            Log.d("hi", filter.getLocationQuery().toString());
-            GeoQuery locationQuery = geoFirestore
-                    .queryAtLocation(filter.getLocationQuery(), filter.getLocationQueryRadius());
-
-            ConcurrentHashMap<String, Game> map = new ConcurrentHashMap<>();
-            MutableLiveData<Map<String, Game>> data = new MutableLiveData<>();
-
-            locationQuery.addGeoQueryDataEventListener(new GeoQueryDataEventListener() {
-                @Override
-                public void onDocumentEntered(@NotNull DocumentSnapshot documentSnapshot, @NotNull GeoPoint geoPoint) {
-                    Log.d("hi", "entered");
-                    Game game = toGame(documentSnapshot.toObject(GameDataModel.class));
-                    map.put(game.getUid(), game);
-                    data.setValue(map);
-                }
-
-                @Override
-                public void onDocumentExited(@NotNull DocumentSnapshot documentSnapshot) {
-                    Log.d("hi", "exited");
-                }
-
-                @Override
-                public void onDocumentMoved(@NotNull DocumentSnapshot documentSnapshot, @NotNull GeoPoint geoPoint) {
-                    Log.d("hi", "moved");
-                }
-
-                @Override
-                public void onDocumentChanged(@NotNull DocumentSnapshot documentSnapshot, @NotNull GeoPoint geoPoint) {
-                    Log.d("hi", "changed");
-                }
-
-                @Override
-                public void onGeoQueryReady() {
-                    Log.d("hi", "ready");
-
-                }
+            GameQueryPlan plan = GameQueryPlanner.planGeo(filter, gameTimesBackfilled);
+            if (plan == null) {
+                MutableLiveData<Map<String, Game>> nothing = new MutableLiveData<>();
+                nothing.setValue(new HashMap<>());
+                return nothing;
+            }
 
-                @Override
-                public void onGeoQueryError(@NotNull Exception e) {
-                    Log.d(DATA_DEBUG, e.toString());
+            // Geo, then facets: the geohash cells produce the candidates, which pass through the
+            // facets before they reach the LiveData. Facets go into every cell query where an index
+            // allows it; the rest, such as the date range and the full name, is checked here.
+            GameFilterIndex.FilterMask mask = GameFilterIndex.FilterMask.of(filter);
+            Map<String, Game> cached = recent == null ? new HashMap<>() : new HashMap<>(recent);
+            for (Game game : gameLocations.withinRadius(filter.getLocationQuery(),
+                    filter.getLocationQueryRadius())) {
+                if (mask.matches(game)) {
+                    cached.put(game.getUid(), game);
                 }
-            });
-            data.setValue(map);
-            return data;
+            }
 
+            Timber.d("Running %s", plan);
+            return localFirst(cached, rememberResults(key, new GeoQueryLiveData<>(plan.constrain(gamesRef),
+                    filter.getLocationQuery(), filter.getLocationQueryRadius(), geoQueryExtraBits,
+                    snapshot -> {
+                        GameDataModel dataModel = DocumentMappers.toGameDataModel(snapshot);
+                        if (dataModel == null) {
+                            return null;
+                        }
+                        Game game = toIndexedGame(dataModel);
+                        return mask.matches(game) ? game : null;
+                    })));
         } else {
-            String nameQuery = null;
-
             ConcurrentHashMap<String, Game> allGames = new ConcurrentHashMap<>();
-            List<Task<QuerySnapshot>> tasks = new ArrayList<>();
+            MutableLiveData<Map<String, Game>> data = new MutableLiveData<>();
 
-            if (filter.getNameQuery() != null && filter.getNameQuery().length() > 3) {
-                nameQuery = filter.getNameQuery();
-            }
+            GameFilterIndex.FilterMask mask = GameFilterIndex.FilterMask.of(filter);
 
-            List<Sport> sportsQuery = filter.getSportQuery();
-            List<TimeOfDay> timeOfDayQuery = filter.getTimeOfDayQuery();
-            if (timeOfDayQuery.isEmpty()) {
-                timeOfDayQuery = Arrays.asList(TimeOfDay.MORNING, TimeOfDay.AFTERNOON, TimeOfDay.NIGHT);
+            // Serve whatever is already cached while the queries below are in flight.
+            if (recent != null) {
+                allGames.putAll(recent);
             }
-            List<Difficulty> skillLevelQuery = filter.getSkillLevelQuery();
-            if (skillLevelQuery.isEmpty()) {
-                skillLevelQuery =
-                        Arrays.asList(Difficulty.BEGINNER, Difficulty.INTERMEDIATE, Difficulty.ADVANCED);
+            for (Game game : gameIndex.search(mask)) {
+                allGames.put(game.getUid(), game);
             }
 
-            MutableLiveData<Map<String, Game>> data = new MutableLiveData<>();
-            for (Sport sport : sportsQuery) {
-                for (TimeOfDay timeOfDay : timeOfDayQuery) {
-                    for (Difficulty skillLevel : skillLevelQuery) {
-                        Query query = gamesRef.orderBy("time");
-                        if (timeOfDay != TimeOfDay.NIGHT) {
-                            query = query.startAt(timeOfDay.getStartTime().toString())
-                                    .endAt(timeOfDay.getEndTime().toString());
+            // Each plan covers part of the filter on the server; the rest is checked here.
+            long readVersion = gameStore.version();
+            Map<String, Game> fresh = new ConcurrentHashMap<>();
+            List<Task<QuerySnapshot>> queries = new ArrayList<>();
+            for (GameQueryPlan plan : GameQueryPlanner.plan(filter, gameTimesBackfilled)) {
+                Timber.d("Running %s", plan);
+                Task<QuerySnapshot> query = plan.toQuery(gamesRef, GameQueryPlanner.QUERY_LIMIT).get();
+                queries.add(query);
+                query.addOnSuccessListener(snapshots -> {
+                    // The filter is changed in place for the next search, so a different
+                    // key means a newer search has replaced this one. Results of the
+                    // current search are kept even while unobserved, e.g. during rotation.
+                    if (!key.equals(GameSearchKey.of(filter))) {
+                        Timber.d("Dropping results of superseded %s", plan);
+                        return;
+                    }
+                    List<GameDataModel> dataModels = DocumentMappers.toObjects(snapshots, GameDataModel.class);
+                    localStore.saveGames(dataModels);
+                    for (GameDataModel dataModel : dataModels) {
+                        Game game = indexGame(gameStore.put(toGame(dataModel), readVersion));
+                        if (mask.matches(game)) {
+                            allGames.put(game.getUid(), game);
+                            fresh.put(game.getUid(), game);
                         } else {
-                            query = query.startAt(timeOfDay.getStartTime().toString())
-                                    .endAt("23:59");
-                        }
-
-                        query = query.whereEqualTo("sport", sport.toString().toUpperCase())
-                                .whereEqualTo("skillLevel", skillLevel.toString().toUpperCase())
-                                .limit(20);
-                        if (nameQuery != null) {
-                            query = query.whereArrayContains("nameSubstrings", nameQuery);
+                            // Shown from an earlier search but no longer matching.
+                            allGames.remove(game.getUid());
                         }
-                        Task<QuerySnapshot> querySnapshotTask = query.get();
-                        querySnapshotTask.addOnSuccessListener(snapshots -> {
-                            StreamSupport.stream(snapshots.getDocuments())
-                                    .map(documentSnapshot -> documentSnapshot.toObject(GameDataModel.class))
-                                    .map(this::toGame)
-                                    .forEach(game -> {
-                                        Log.d("hi", game.getGameName() + " 1 " + game.getTime().toString());
-                                        allGames.put(game.getUid(), game);
-                                        data.setValue(allGames);
-                                    });
-                        });
+                    }
+                    data.setValue(allGames);
+                }).addOnFailureListener(e -> Timber.d(e, "Game query failed: %s", plan));
+            }
 
-                        if (timeOfDay == TimeOfDay.NIGHT) {
-                            Query query2 = gamesRef.orderBy("time")
-                                    .startAt("00:00")
-                                    .endAt(timeOfDay.getEndTime().toString())
-                                    .whereEqualTo("sport", sport.toString().toUpperCase())
-                                    .whereEqualTo("skillLevel", skillLevel.toString().toUpperCase())
-                                    .limit(20);
-                            if (nameQuery != null) {
-                                query2 = query2.whereArrayContains("nameSubstrings", nameQuery);
-                            }
-                            Task<QuerySnapshot> querySnapshotTask2 = query2.get();
-                            querySnapshotTask2.addOnSuccessListener(snapshots -> {
-                                StreamSupport.stream(snapshots.getDocuments())
-                                        .map(documentSnapshot -> documentSnapshot.toObject(GameDataModel.class))
-                                        .map(this::toGame)
-                                        .forEach(game -> {
-                                            Log.d("hi", game.getGameName() + " 2 " + game.getTime().toString());
-                                            allGames.put(game.getUid(), game);
-                                            data.setValue(allGames);
-                                        });
-                            });
+            // Once every plan has answered, the server results replace the recent ones, so games
+            // the server no longer returns are dropped and the cache entry's age starts over.
+            Tasks.whenAllSuccess(queries).addOnSuccessListener(answers -> {
+                if (!key.equals(GameSearchKey.of(filter))) {
+                    return;
+                }
+                if (recent != null) {
+                    for (String uid : recent.keySet()) {
+                        if (!fresh.containsKey(uid)) {
+                            allGames.remove(uid);
                         }
-
-                        data.setValue(allGames);
                     }
+                    data.setValue(allGames);
                 }
-            }
+                mSearchResultsCache.put(key, new HashMap<>(fresh));
+            });
 
+            data.setValue(allGames);
             return data;
         }
     }
 
+    /**
+     * One page of games matching the filter in start time order, after the cursor of the page
+     * before or from the start when it is null. Location and sort options are ignored.
+     */
+    @Override
+    public Task<GameSearchPage> getGamesPage(GameSearchFilter filter, @Nullable GameSearchCursor startAfter,
+                                             int pageSize) {
+        return newGameSearchPager(filter).load(startAfter, pageSize, false);
+    }
+
+    /**
+     * Games matching the filter in start time order, read a page at a time as the list is
+     * scrolled. At most {@link GameSearchDataSource#MAX_LOADED_GAMES} are held at once.
+     */
+    @Override
+    public LiveData<PagedList<GameSummary>> getPagedGamesWithFilters(GameSearchFilter filter) {
+        DataSource.Factory<GameSearchCursor, GameSummary> summaries =
+                new GameSearchDataSource.Factory(newGameSearchPager(filter)).map(GameSummary::of);
+        return new LivePagedListBuilder<>(summaries, GameSearchDataSource.CONFIG).build();
+    }
+
+    private GameSearchPager newGameSearchPager(GameSearchFilter filter) {
+        return new GameSearchPager(db.collection(GAMES_PATH), filter, snapshot -> {
+            GameDataModel dataModel = DocumentMappers.toGameDataModel(snapshot);
+            if (dataModel == null) {
+                return null;
+            }
+            localStore.saveGame(dataModel);
+            return toIndexedGame(dataModel);
+        });
+    }
+
+    /**
+     * Games inside the box between the two corners, e.g. the visible part of a map. Cached games
+     * are emitted straight away; the server results replace them once every geohash cell around
+     * the box has answered.
+     */
+    @Override
+    public LiveData<Map<String, Game>> getGamesInArea(GeoPoint southWest, GeoPoint northEast) {
+        Map<String, Game> cached = new HashMap<>();
+        for (Game game : gameLocations.withinBox(southWest, northEast)) {
+            cached.put(game.getUid(), game);
+        }
+
+        // Geo queries cover circles, so query the circle through the corners of the box.
+        double east = northEast.getLongitude();
+        if (east < southWest.getLongitude()) {
+            east += 360;
+        }
+        double centerLng = (southWest.getLongitude() + east) / 2;
+        GeoPoint center = new GeoPoint((southWest.getLatitude() + northEast.getLatitude()) / 2,
+                centerLng > 180 ? centerLng - 360 : centerLng);
+        double radiusKm = Math.max(GeoHash.distanceKm(center, southWest),
+                GeoHash.distanceKm(center, northEast));
+
+        return localFirst(cached, new GeoQueryLiveData<>(db.collection(GAMES_PATH), center, radiusKm,
+                geoQueryExtraBits, snapshot -> {
+                    GameDataModel dataModel = DocumentMappers.toGameDataModel(snapshot);
+                    if (dataModel == null) {
+                        return null;
+                    }
+                    Game game = toIndexedGame(dataModel);
+                    return GameSpatialIndex.inBox(game.getLocation(), southWest, northEast) ? game : null;
+                }));
+    }
+
+    // The cached games closest to the location, nearest first. Answered without the network.
+    @Override
+    public List<Game> getNearestCachedGames(GeoPoint location, int count) {
+        return gameLocations.nearest(location, count);
+    }
+
     @Override
     public LiveData<List<Game>> selectGamesStartingWith(String field, String queryText) {
         LiveData<List<GameDataModel>> listLiveData = convertToLiveData(
                 queryStartingWith("Games", field, queryText), GameDataModel.class);
 
-        return Transformations.map(listLiveData, this::toGames);
+        return Transformations.map(listLiveData, this::toIndexedGames);
     }
 
     @Override
     public Task<Void> deleteGame(String gameId) {
-        return deleteDocument(gameId, "Games");
+        gameStore.remove(gameId);
+        gameIndex.remove(gameId);
+        gameLocations.remove(gameId);
+        // One batch, so a game is never left without its summary or the other way round.
+        WriteBatch batch = db.batch();
+        batch.delete(db.collection(GAME_SUMMARIES_PATH).document(gameId));
+        batch.delete(db.collection(GAMES_PATH).document(gameId));
+        return batch.commit()
+                .addOnSuccessListener(aVoid -> Timber.d("%s successfully deleted!", gameId))
+                .addOnFailureListener(e -> Timber.d(e, "Error deleting game %s", gameId));
     }
 
     // --------------------------------------------------------------------------------------------
@@ -627,39 +825,157 @@ public class SportalRepo implements ISportalRepo {
     public void refreshCache() {
         mUserProfilesCache.invalidateAll();
         mGamesCache.invalidateAll();
+        mGameSummariesCache.invalidateAll();
+        mSearchResultsCache.invalidateAll();
     }
 
-    private <T> LiveData<T> convertToLiveData(DocumentReference docRef, Class<T> valueType) {
-        MutableLiveData<T> liveData = new MutableLiveData<>();
-        docRef.addSnapshotListener((value, err) -> {
-            if (err != null) {
-                Timber.d(err, "database snapshot error");
-            } else if (value != null && value.exists()) {
-                try {
-                    liveData.postValue(value.toObject(valueType));
-                } catch (RuntimeException e) {
-                    Timber.d(e, "deserialization error");
-                }
-            } else {
-                Timber.d("document with id %s does not exist", docRef.getId());
+    /**
+     * Geohash precision used by location searches, in bits above the default for the radius.
+     * Positive values read fewer games outside the radius at the cost of more cell queries.
+     */
+    public void setGeoQueryPrecision(int extraBits) {
+        geoQueryExtraBits = extraBits;
+    }
+
+    // Called from Application.onTrimMemory; unobserved cache entries are dropped first.
+    public void trimMemory(int level) {
+        int users = CacheBudget.trim(mUserProfilesCache, level);
+        int games = CacheBudget.trim(mGamesCache, level);
+        int summaries = CacheBudget.trim(mGameSummariesCache, level);
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_BACKGROUND) {
+            // Search results are only a head start for repeated searches.
+            mSearchResultsCache.invalidateAll();
+            users += userStore.trimUnused();
+            games += gameStore.trimUnused();
+        }
+        Timber.d("Trim level %d evicted %d users, %d games, %d summaries."
+                        + " Stored: %d B of users, %d B of games."
+                        + " User cache: %s. Game cache: %s",
+                level, users, games, summaries, userStore.weight(), gameStore.weight(),
+                mUserProfilesCache.stats(), mGamesCache.stats());
+    }
+
+    // Hit, miss, eviction and load time counts since the repo was created.
+    public CacheStats getUserProfileCacheStats() {
+        return mUserProfilesCache.stats();
+    }
+
+    public CacheStats getGameCacheStats() {
+        return mGamesCache.stats();
+    }
+
+    public CacheStats getGameSummaryCacheStats() {
+        return mGameSummariesCache.stats();
+    }
+
+    public CacheStats getSearchResultsCacheStats() {
+        return mSearchResultsCache.stats();
+    }
+
+    // Games created before summaries existed get theirs written the first time they are listed.
+    private void backfillGameSummary(String gameUid) {
+        if (!mSummaryBackfills.add(gameUid)) {
+            return;
+        }
+        db.collection(GAMES_PATH).document(gameUid).get()
+                .continueWithTask(task -> {
+                    GameDataModel dataModel = DocumentMappers.toGameDataModel(task.getResult());
+                    if (dataModel == null) {
+                        return Tasks.forResult((Void) null);
+                    }
+                    return db.collection(GAME_SUMMARIES_PATH).document(gameUid)
+                            .set(new GameSummaryDataModel(toGame(dataModel)));
+                })
+                .addOnCompleteListener(task -> mSummaryBackfills.remove(gameUid))
+                .addOnFailureListener(e -> Timber.d(e, "Summary backfill failed for %s", gameUid));
+    }
+
+    // Drops the in-memory caches as well as everything persisted on disk, e.g. on log out.
+    public void clearLocalData() {
+        refreshCache();
+        gameStore.clear();
+        userStore.clear();
+        gameIndex.clear();
+        gameLocations.clear();
+        userDirectory.clear();
+        localStore.clear();
+    }
+
+    // Keeps each server result of a search for when the same search is run again.
+    private LiveData<Map<String, Game>> rememberResults(GameSearchKey key,
+                                                        LiveData<Map<String, Game>> results) {
+        // Only the first full answer is cached. Later changes would restart the entry's age on
+        // every update, and the listener keeps the shown results up to date anyway.
+        boolean[] remembered = {false};
+        return Transformations.map(results, games -> {
+            if (!remembered[0]) {
+                remembered[0] = true;
+                mSearchResultsCache.put(key, games);
             }
+            return games;
         });
-        return liveData;
     }
 
-    private <T> LiveData<List<T>> convertToLiveData(Query query, Class<T> valueType) {
-        MutableLiveData<List<T>> liveData = new MutableLiveData<>();
-        query.addSnapshotListener((value, err) -> {
-            if (err != null) {
-                Timber.d(err, "database snapshot error");
-            } else {
-                assert value != null;
-                liveData.postValue(value.toObjects(valueType));
+    // Emits the cached results, then every server result in their place.
+    private <T> LiveData<T> localFirst(T cached, LiveData<T> remote) {
+        MediatorLiveData<T> result = new MediatorLiveData<>();
+        result.setValue(cached);
+        result.addSource(remote, result::setValue);
+        return result;
+    }
+
+    /**
+     * Follows an entity in the store while observed. The copy from the local store fills the
+     * store if the remote source has not been heard from yet, and every remote value replaces
+     * it. Values already in the store, e.g. from a query result, are emitted immediately.
+     */
+    private <T, M> LiveData<T> storeBacked(LiveData<T> stored, LiveData<M> local, Consumer<M> onLocal,
+                                           LiveData<M> remote, Consumer<M> onRemote) {
+        MediatorLiveData<T> result = new MediatorLiveData<>();
+        result.addSource(stored, result::setValue);
+        result.addSource(local, cached -> {
+            result.removeSource(local);
+            if (cached != null) {
+                onLocal.accept(cached);
             }
         });
+        result.addSource(remote, fresh -> {
+            result.removeSource(local);
+            onRemote.accept(fresh);
+        });
+        return result;
+    }
+
+    // The cached or stored profile, for callers that would otherwise read it again.
+    @Nullable
+    private LiveData<UserProfile> cachedUser(String uid) {
+        LiveData<UserProfile> cached = mUserProfilesCache.getIfPresent(uid);
+        if (cached == null && userStore.peek(uid) != null) {
+            cached = userStore.get(uid);
+        }
+        return cached;
+    }
+
+    private <T> LiveData<T> cachedListener(DocumentReference docRef, Class<T> valueType) {
+        FirestoreLiveData<T> liveData = FirestoreLiveData.of(docRef, valueType);
+        mCachedListeners.put(docRef.getPath(), liveData);
         return liveData;
     }
 
+    // Stops the snapshot listener of an evicted or invalidated cache entry.
+    private void detachCachedListener(String collectionPath, RemovalNotification<String, ?> notification) {
+        FirestoreLiveData<?> liveData = mCachedListeners.remove(collectionPath + "/" + notification.getKey());
+        // A screen still showing the entry keeps its listener; onInactive detaches it afterwards.
+        if (liveData != null && !liveData.hasActiveObservers()) {
+            Timber.d("Detaching %s/%s (%s)", collectionPath, notification.getKey(), notification.getCause());
+            liveData.detach();
+        }
+    }
+
+    private <T> LiveData<List<T>> convertToLiveData(Query query, Class<T> valueType) {
+        return FirestoreLiveData.of(query, valueType);
+    }
+
     private Query queryStartingWith(String collection, String field, String queryText) {
         return db.collection(collection)
                 .orderBy(field)
@@ -667,41 +983,163 @@ public class SportalRepo implements ISportalRepo {
                 .endAt(queryText + "\uf8ff"); // StackOverflow hacks...
     }
 
-    private Task<Void> deleteDocument(String docID, String collectionPath) {
-        return db.collection(collectionPath)
-                .document(docID)
-                .delete()
-                .addOnSuccessListener(aVoid -> Timber.d("%s successfully deleted!", docID))
-                .addOnFailureListener(e -> Timber.d(e, "Error deleting document"));
-    }
-
-    @SuppressWarnings("UnusedReturnValue")
-    private Task<UserProfileDataModel> changeGameStatusForUser(GameStatus status, String gameUid, String userUid) {
-        return db.runTransaction(transaction -> {
-            DocumentReference docRef = db.collection(USERS_PATH).document(userUid);
-            UserProfileDataModel dataModel = transaction.get(docRef)
-                    .toObject(UserProfileDataModel.class);
+    /**
+     * Moves every pending or confirmed game of the user that has already ended to completed, with
+     * a single batched write to the user's own document. Running it again is a no-op. Resolves to
+     * the number of per-participant transactions the old on-view status update would have run
+     * for the same games.
+     */
+    public Task<Integer> completeFinishedGames(String userUid) {
+        DocumentReference userDocRef = db.collection(USERS_PATH).document(userUid);
+        return userDocRef.get().continueWithTask(task -> {
+            UserProfileDataModel dataModel = DocumentMappers.toUserProfileDataModel(task.getResult());
+            List<String> candidates = new ArrayList<>();
+            if (dataModel != null && dataModel.getGames() != null) {
+                Map<String, List<String>> games = dataModel.getGames();
+                candidates.addAll(orEmptyList(games.get(GameStatus.PENDING.toString())));
+                candidates.addAll(orEmptyList(games.get(GameStatus.CONFIRMED.toString())));
+            }
 
-            if (dataModel != null) {
-                Map<String, List<String>> gamesMap = dataModel.getGames();
+            List<Task<QuerySnapshot>> reads = new ArrayList<>();
+            for (int i = 0; i < candidates.size(); i += MAX_IDS_PER_READ) {
+                List<String> chunk = candidates.subList(i,
+                        Math.min(i + MAX_IDS_PER_READ, candidates.size()));
+                reads.add(db.collection(GAMES_PATH)
+                        .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                        .get());
+            }
+            return Tasks.<QuerySnapshot>whenAllSuccess(reads);
+        }).continueWithTask(task -> {
+            List<String> completed = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int legacyTransactions = 0;
+            for (QuerySnapshot snapshots : task.getResult()) {
+                for (GameDataModel dataModel : DocumentMappers.toObjects(snapshots, GameDataModel.class)) {
+                    Game game = toGame(dataModel);
+                    if (game.isComplete()) {
+                        completed.add(dataModel.getUid());
+                        batch.set(membershipRef(userUid, dataModel.getUid()),
+                                new GameMembershipDataModel(GameStatus.COMPLETED, startTimeMillis(game)));
+                        legacyTransactions += orEmptyList(dataModel.getParticipatingUids()).size();
+                    }
+                }
+            }
+            if (completed.isEmpty()) {
+                return Tasks.forResult(0);
+            }
 
-                for (Map.Entry<String, List<String>> entry : gamesMap.entrySet()) {
-                    if (entry.getKey().equals(status.toString())) {
+            Object[] gameUids = completed.toArray();
+            batch.update(userDocRef,
+                    "games." + GameStatus.COMPLETED, FieldValue.arrayUnion(gameUids),
+                    "games." + GameStatus.PENDING, FieldValue.arrayRemove(gameUids),
+                    "games." + GameStatus.CONFIRMED, FieldValue.arrayRemove(gameUids));
+
+            int replaced = legacyTransactions;
+            return batch.commit()
+                    .addOnSuccessListener(aVoid -> Timber.d("%d games completed for %s", completed.size(), userUid))
+                    .continueWith(commit -> {
+                        commit.getResult();
+                        return replaced;
+                    });
+        });
+    }
 
-                        if (!entry.getValue().contains(gameUid)) {
-                            entry.getValue().add(gameUid);
-                        }
+    /**
+     * Copies the games map embedded in the user document into the gameMemberships subcollection.
+     * Runs once per user; later calls only read the migrated flag. Resolves to the number of
+     * memberships written.
+     */
+    public Task<Integer> migrateGameMemberships(String userUid) {
+        DocumentReference userDocRef = db.collection(USERS_PATH).document(userUid);
+        Map<String, GameStatus> statuses = new HashMap<>();
+        return userDocRef.get().continueWithTask(task -> {
+            DocumentSnapshot snapshot = task.getResult();
+            UserProfileDataModel dataModel = DocumentMappers.toUserProfileDataModel(snapshot);
+            if (dataModel == null || Boolean.TRUE.equals(snapshot.getBoolean(MEMBERSHIPS_MIGRATED_FIELD))) {
+                return Tasks.<List<QuerySnapshot>>forResult(null);
+            }
 
-                    } else {
-                        entry.getValue().remove(gameUid);
+            if (dataModel.getGames() != null) {
+                for (GameStatus status : GameStatus.values()) {
+                    for (String gameUid : orEmptyList(dataModel.getGames().get(status.toString()))) {
+                        statuses.put(gameUid, status);
                     }
                 }
-                transaction.set(docRef, dataModel, SetOptions.merge());
             }
-            return dataModel;
+
+            List<String> gameUids = new ArrayList<>(statuses.keySet());
+            List<Task<QuerySnapshot>> reads = new ArrayList<>();
+            for (int i = 0; i < gameUids.size(); i += MAX_IDS_PER_READ) {
+                List<String> chunk = gameUids.subList(i,
+                        Math.min(i + MAX_IDS_PER_READ, gameUids.size()));
+                reads.add(db.collection(GAMES_PATH)
+                        .whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                        .get());
+            }
+            return Tasks.<QuerySnapshot>whenAllSuccess(reads);
+        }).continueWithTask(task -> {
+            if (task.getResult() == null) {
+                return Tasks.forResult(0);
+            }
+            List<GameDataModel> games = new ArrayList<>();
+            for (QuerySnapshot snapshots : task.getResult()) {
+                games.addAll(DocumentMappers.toObjects(snapshots, GameDataModel.class));
+            }
+
+            List<Task<Void>> commits = new ArrayList<>();
+            WriteBatch batch = db.batch();
+            int writes = 0;
+            for (GameDataModel dataModel : games) {
+                GameMembershipDataModel membership = new GameMembershipDataModel(
+                        statuses.get(dataModel.getUid()), startTimeMillis(toGame(dataModel)));
+                batch.set(membershipRef(userUid, dataModel.getUid()), membership);
+                if (++writes % MAX_BATCH_WRITES == 0) {
+                    commits.add(batch.commit());
+                    batch = db.batch();
+                }
+            }
+            batch.update(userDocRef, MEMBERSHIPS_MIGRATED_FIELD, true);
+            commits.add(batch.commit());
+
+            int migrated = writes;
+            return Tasks.whenAll(commits).continueWith(commit -> {
+                commit.getResult();
+                Timber.d("Migrated %d game memberships for %s", migrated, userUid);
+                return migrated;
+            });
         });
     }
 
+    // Games starting from now on, soonest first. Read from the games map until the user is migrated.
+    public GameMembershipPager getUpcomingGames(String userUid) {
+        Query query = memberships(userUid)
+                .whereGreaterThanOrEqualTo(GameMembershipDataModel.START_TIME_FIELD, System.currentTimeMillis())
+                .orderBy(GameMembershipDataModel.START_TIME_FIELD, Query.Direction.ASCENDING);
+        return new GameMembershipPager(db.collection(USERS_PATH).document(userUid), query, true,
+                this::getGameSummary);
+    }
+
+    // Games that have already started, most recent first. Read from the games map until the user is migrated.
+    public GameMembershipPager getPastGames(String userUid) {
+        Query query = memberships(userUid)
+                .whereLessThan(GameMembershipDataModel.START_TIME_FIELD, System.currentTimeMillis())
+                .orderBy(GameMembershipDataModel.START_TIME_FIELD, Query.Direction.DESCENDING);
+        return new GameMembershipPager(db.collection(USERS_PATH).document(userUid), query, false,
+                this::getGameSummary);
+    }
+
+    private CollectionReference memberships(String userUid) {
+        return db.collection(USERS_PATH).document(userUid).collection(MEMBERSHIPS_PATH);
+    }
+
+    private DocumentReference membershipRef(String userUid, String gameUid) {
+        return memberships(userUid).document(gameUid);
+    }
+
+    private static long startTimeMillis(Game game) {
+        return GameDataModel.toEpochMillis(game.getDate(), game.getTime());
+    }
+
     // ---------------------------------------------------------------------------------------------
     // *** METHODS TO CONVERT BETWEEN DOMAIN MODEL AND DATA MODEL ***
     // ---------------------------------------------------------------------------------------------
@@ -727,10 +1165,10 @@ public class SportalRepo implements ISportalRepo {
         List<String> sentFriendRequests = orEmptyList(dataModel.getSentFriendRequests());
         List<String> receivedFriendRequests = orEmptyList(dataModel.getReceivedFriendRequests());
 
-        return UserProfile.builder()
+        UserProfile userProfile = UserProfile.builder()
                 .withDisplayName(dataModel.getDisplayName())
                 .withGender(dataModel.getGender())
-                .withBirthday(LocalDate.parse(dataModel.getBirthday()))
+                .withBirthday(DocumentMappers.parseDate(dataModel.getBirthday()))
                 .withCountry(dataModel.getCountry())
                 .withUid(dataModel.getUid())
                 .withDisplayPicUri(Uri.parse(dataModel.getDisplayPicUri()))
@@ -741,12 +1179,20 @@ public class SportalRepo implements ISportalRepo {
                 .addAllReceivedFriendRequests(receivedFriendRequests)
                 .putAllGames(newMap)
                 .build();
+        // Every profile seen becomes searchable in the local user directory.
+        userDirectory.put(userProfile);
+        return userProfile;
     }
 
-    private List<UserProfile> toUserProfiles(List<UserProfileDataModel> dataModels) {
+    // Converts a profile read from the server and makes it the stored instance.
+    private UserProfile toStoredUserProfile(UserProfileDataModel dataModel) {
+        return userStore.put(toUserProfile(dataModel));
+    }
+
+    private List<UserProfile> toStoredUserProfiles(List<UserProfileDataModel> dataModels) {
         List<UserProfile> newList = new ArrayList<>();
         for (UserProfileDataModel dataModel : dataModels) {
-            newList.add(toUserProfile(dataModel));
+            newList.add(toStoredUserProfile(dataModel));
         }
         return newList;
     }
@@ -755,7 +1201,32 @@ public class SportalRepo implements ISportalRepo {
         return new GameDataModel(game);
     }
 
+    private GameSummary toGameSummary(GameSummaryDataModel dataModel) {
+        return GameSummary.builder()
+                .withUid(dataModel.getUid())
+                .withGameName(dataModel.getGameName())
+                .withSport(dataModel.getSport())
+                .withSkillLevel(dataModel.getSkillLevel())
+                .withPlaceName(dataModel.getPlaceName())
+                .withDate(DocumentMappers.parseDate(dataModel.getDate()))
+                .withTime(DocumentMappers.parseTime(dataModel.getTime()))
+                .withDuration(DocumentMappers.parseDuration(dataModel.getDuration()))
+                .withMinPlayers(dataModel.getMinPlayers())
+                .withMaxPlayers(dataModel.getMaxPlayers())
+                .withParticipantCount(dataModel.getParticipantCount())
+                .build();
+    }
+
     private Game toGame(GameDataModel dataModel) {
+        LocalTime time;
+        Duration duration;
+        if (dataModel.hasNumericTimes()) {
+            time = LocalTime.of(dataModel.getMinuteOfDay() / 60, dataModel.getMinuteOfDay() % 60);
+            duration = Duration.ofMillis(dataModel.getEndMillis() - dataModel.getStartMillis());
+        } else {
+            time = DocumentMappers.parseTime(dataModel.getTime());
+            duration = DocumentMappers.parseDuration(dataModel.getDuration());
+        }
 
         return Game.builder()
                 .withGameName(dataModel.getGameName())
@@ -765,9 +1236,9 @@ public class SportalRepo implements ISportalRepo {
                 .withMinPlayers(dataModel.getMinPlayers())
                 .withMaxPlayers(dataModel.getMaxPlayers())
                 .withSkillLevel(dataModel.getSkillLevel())
-                .withDate(LocalDate.parse(dataModel.getDate()))
-                .withTime(LocalTime.parse(dataModel.getTime()))
-                .withDuration(Duration.parse(dataModel.getDuration()))
+                .withDate(DocumentMappers.parseDate(dataModel.getDate()))
+                .withTime(time)
+                .withDuration(duration)
                 .withUid(dataModel.getUid())
                 .withCreatorUid(dataModel.getCreatorUid())
                 .withDescription(Optional.fromNullable(dataModel.getDescription()))
@@ -776,10 +1247,22 @@ public class SportalRepo implements ISportalRepo {
                 .build();
     }
 
-    private List<Game> toGames(List<GameDataModel> dataModels) {
+    // Converts a game read from the server, makes it the stored instance and indexes it.
+    private Game toIndexedGame(GameDataModel dataModel) {
+        return indexGame(gameStore.put(toGame(dataModel)));
+    }
+
+    // Records the game in the in-memory filter and location indexes.
+    private Game indexGame(Game game) {
+        gameIndex.put(game);
+        gameLocations.put(game);
+        return game;
+    }
+
+    private List<Game> toIndexedGames(List<GameDataModel> dataModels) {
         List<Game> newList = new ArrayList<>();
         for (GameDataModel dataModel : dataModels) {
-            newList.add(toGame(dataModel));
+            newList.add(toIndexedGame(dataModel));
         }
         return newList;
     }
@@ -0,0 +1,216 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
+
+/**
+ * In-memory search index over the display names of every user profile the app has seen. Names
+ * are normalized like game names and stored in a prefix trie under the full name and under each
+ * later word, so "smi" finds "John Smith". Queries that find too few prefix matches fall back to
+ * a bounded edit distance walk of the same trie, which tolerates typos in what has been typed so
+ * far.
+ */
+class UserDirectoryIndex {
+    private final Node root = new Node();
+    private final Map<String, UserProfile> profiles = new HashMap<>();
+    private final Map<String, List<Node>> terminals = new HashMap<>();
+
+    synchronized void put(UserProfile profile) {
+        String uid = profile.getUid();
+        UserProfile previous = profiles.put(uid, profile);
+        if (previous != null && previous.getDisplayName().equals(profile.getDisplayName())) {
+            return;
+        }
+        removeKeys(uid);
+
+        List<Node> nodes = new ArrayList<>();
+        for (String key : keys(profile.getDisplayName())) {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrCreate(key.charAt(i));
+            }
+            node.uids.add(uid);
+            nodes.add(node);
+        }
+        terminals.put(uid, nodes);
+    }
+
+    synchronized void putAll(Collection<UserProfile> newProfiles) {
+        for (UserProfile profile : newProfiles) {
+            put(profile);
+        }
+    }
+
+    synchronized void clear() {
+        root.clear();
+        profiles.clear();
+        terminals.clear();
+    }
+
+    synchronized int size() {
+        return profiles.size();
+    }
+
+    /**
+     * Up to {@code limit} profiles whose name, or a word in it, starts with the query. If there
+     * are fewer than that, the rest is filled with the closest names within
+     * {@link #maxDistance(int)} edits of the query.
+     */
+    synchronized List<UserProfile> search(String query, int limit) {
+        String normalized = GameNameIndex.normalize(query);
+        if (normalized.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        Set<String> uids = new LinkedHashSet<>();
+        Node node = root;
+        for (int i = 0; i < normalized.length() && node != null; i++) {
+            node = node.child(normalized.charAt(i));
+        }
+        if (node != null) {
+            node.collect(uids, limit);
+        }
+
+        int maxDistance = maxDistance(normalized.length());
+        if (uids.size() < limit && maxDistance > 0) {
+            // Closer matches first: one edit, then two.
+            for (int distance = 1; distance <= maxDistance && uids.size() < limit; distance++) {
+                int[] firstRow = new int[normalized.length() + 1];
+                for (int i = 0; i < firstRow.length; i++) {
+                    firstRow[i] = i;
+                }
+                root.collectWithin(normalized, firstRow, null, '\0', distance, uids, limit);
+            }
+        }
+
+        List<UserProfile> results = new ArrayList<>(uids.size());
+        for (String uid : uids) {
+            results.add(profiles.get(uid));
+        }
+        return results;
+    }
+
+    // Short queries are too ambiguous to correct.
+    static int maxDistance(int queryLength) {
+        if (queryLength < 4) {
+            return 0;
+        } else if (queryLength < 8) {
+            return 1;
+        } else {
+            return 2;
+        }
+    }
+
+    private static List<String> keys(String displayName) {
+        String normalized = GameNameIndex.normalize(displayName);
+        List<String> keys = new ArrayList<>();
+        if (normalized.isEmpty()) {
+            return keys;
+        }
+        keys.add(normalized);
+        for (int i = normalized.indexOf(' '); i >= 0; i = normalized.indexOf(' ', i + 1)) {
+            keys.add(normalized.substring(i + 1));
+        }
+        return keys;
+    }
+
+    private void removeKeys(String uid) {
+        List<Node> nodes = terminals.remove(uid);
+        if (nodes != null) {
+            for (Node node : nodes) {
+                node.uids.remove(uid);
+            }
+        }
+    }
+
+    private static class Node {
+        private char[] labels = new char[0];
+        private Node[] children = new Node[0];
+        private final Set<String> uids = new LinkedHashSet<>();
+
+        Node child(char label) {
+            for (int i = 0; i < labels.length; i++) {
+                if (labels[i] == label) {
+                    return children[i];
+                }
+            }
+            return null;
+        }
+
+        Node childOrCreate(char label) {
+            Node child = child(label);
+            if (child == null) {
+                child = new Node();
+                labels = Arrays.copyOf(labels, labels.length + 1);
+                children = Arrays.copyOf(children, children.length + 1);
+                labels[labels.length - 1] = label;
+                children[children.length - 1] = child;
+            }
+            return child;
+        }
+
+        void clear() {
+            labels = new char[0];
+            children = new Node[0];
+            uids.clear();
+        }
+
+        // Adds the uids under this node, shortest keys first, until the limit is reached.
+        void collect(Set<String> out, int limit) {
+            List<Node> level = new ArrayList<>();
+            level.add(this);
+            while (!level.isEmpty() && out.size() < limit) {
+                List<Node> next = new ArrayList<>();
+                for (Node node : level) {
+                    for (String uid : node.uids) {
+                        if (out.size() >= limit) {
+                            return;
+                        }
+                        out.add(uid);
+                    }
+                    next.addAll(Arrays.asList(node.children));
+                }
+                level = next;
+            }
+        }
+
+        /**
+         * Walks the trie computing one edit distance row per node against the query, counting an
+         * adjacent transposition as a single edit. A node whose last cell is within the distance
+         * has a prefix matching the whole query, so its subtree is collected; a node whose row
+         * minimum exceeds it cannot lead to a match.
+         */
+        void collectWithin(String query, int[] previousRow, int[] rowBeforeThat, char previousLabel,
+                           int maxDistance, Set<String> out, int limit) {
+            for (int c = 0; c < children.length && out.size() < limit; c++) {
+                char label = labels[c];
+                int[] row = new int[previousRow.length];
+                row[0] = previousRow[0] + 1;
+                int rowMin = row[0];
+                for (int i = 1; i < row.length; i++) {
+                    int substitution = previousRow[i - 1] + (query.charAt(i - 1) == label ? 0 : 1);
+                    row[i] = Math.min(substitution, Math.min(row[i - 1], previousRow[i]) + 1);
+                    if (rowBeforeThat != null && i > 1 && query.charAt(i - 1) == previousLabel
+                            && query.charAt(i - 2) == label) {
+                        row[i] = Math.min(row[i], rowBeforeThat[i - 2] + 1);
+                    }
+                    rowMin = Math.min(rowMin, row[i]);
+                }
+
+                if (row[row.length - 1] <= maxDistance) {
+                    children[c].collect(out, limit);
+                } else if (rowMin <= maxDistance) {
+                    children[c].collectWithin(query, row, previousRow, label, maxDistance, out, limit);
+                }
+            }
+        }
+    }
+}
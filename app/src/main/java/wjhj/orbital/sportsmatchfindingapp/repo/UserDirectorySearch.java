@@ -0,0 +1,102 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.android.gms.tasks.Task;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
+
+/**
+ * Search-as-you-type over the user directory. Every query is answered straight away from the
+ * local {@link UserDirectoryIndex}; only when that finds fewer than {@link #MIN_LOCAL_RESULTS}
+ * profiles is a server query made, after the text has been stable for {@link #DEBOUNCE_MILLIS}.
+ * Server results for a query that is no longer current are dropped. Must be used from the main
+ * thread.
+ */
+public class UserDirectorySearch {
+    static final int MAX_RESULTS = 20;
+    static final int MIN_LOCAL_RESULTS = 5;
+    static final long DEBOUNCE_MILLIS = 300;
+
+    private final UserDirectoryIndex index;
+    private final Function<String, Task<List<UserProfile>>> serverSearch;
+    private final MutableLiveData<List<UserProfile>> results = new MutableLiveData<>();
+    private final Handler handler = new Handler(Looper.getMainLooper());
+
+    private String query = "";
+    // Incremented on every query change; server responses tagged with an older value are stale.
+    private int generation;
+    private Runnable pendingFetch;
+
+    UserDirectorySearch(UserDirectoryIndex index, Function<String, Task<List<UserProfile>>> serverSearch) {
+        this.index = index;
+        this.serverSearch = serverSearch;
+    }
+
+    public LiveData<List<UserProfile>> getResults() {
+        return results;
+    }
+
+    public void setQuery(String text) {
+        String newQuery = text == null ? "" : text.trim();
+        if (newQuery.equals(query) && results.getValue() != null) {
+            return;
+        }
+        query = newQuery;
+        cancel();
+
+        if (query.isEmpty()) {
+            results.setValue(new ArrayList<>());
+            return;
+        }
+
+        List<UserProfile> local = searchLocal();
+        if (local.size() < MIN_LOCAL_RESULTS) {
+            int fetchGeneration = generation;
+            String fetchQuery = query;
+            pendingFetch = () -> fetch(fetchQuery, fetchGeneration);
+            handler.postDelayed(pendingFetch, DEBOUNCE_MILLIS);
+        }
+    }
+
+    // Drops the pending server query and ignores any that is still in flight.
+    public void cancel() {
+        generation++;
+        if (pendingFetch != null) {
+            handler.removeCallbacks(pendingFetch);
+            pendingFetch = null;
+        }
+    }
+
+    private List<UserProfile> searchLocal() {
+        long start = System.nanoTime();
+        List<UserProfile> local = index.search(query, MAX_RESULTS);
+        Timber.d("Local user search for \"%s\": %d results in %d us", query, local.size(),
+                (System.nanoTime() - start) / 1000);
+        results.setValue(local);
+        return local;
+    }
+
+    private void fetch(String fetchQuery, int fetchGeneration) {
+        pendingFetch = null;
+        serverSearch.apply(fetchQuery)
+                .addOnSuccessListener(profiles -> {
+                    if (fetchGeneration != generation) {
+                        Timber.d("Dropping stale user search for \"%s\"", fetchQuery);
+                        return;
+                    }
+                    // The server results are in the index by now; rank them with the local ones.
+                    searchLocal();
+                })
+                .addOnFailureListener(e -> Timber.d(e, "User search failed"));
+    }
+}
@@ -0,0 +1,128 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import android.view.Choreographer;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MutableLiveData;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.firebase.firestore.CollectionReference;
+import com.google.firebase.firestore.DocumentSnapshot;
+import com.google.firebase.firestore.FieldPath;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import java9.util.function.Consumer;
+import java9.util.function.Function;
+import timber.log.Timber;
+import wjhj.orbital.sportsmatchfindingapp.user.UserProfile;
+
+/**
+ * Collects user profile requests made within one frame and resolves them together with chunked
+ * whereIn(documentId) queries, instead of one document read per uid. Each LiveData only carries
+ * that first read; {@link SportalRepo#loadUser} follows later changes. A uid with no profile, or
+ * whose read failed, emits null so that lists waiting on it are not held back. Must be used from
+ * the main thread.
+ */
+class UserProfileBatchLoader {
+    static final int MAX_CHUNK_SIZE = 10;
+
+    private final CollectionReference users;
+    private final Function<String, LiveData<UserProfile>> cacheLookup;
+    private final Function<UserProfileDataModel, UserProfile> mapper;
+    private final Consumer<List<UserProfileDataModel>> writeBack;
+
+    private final Cache<String, MutableLiveData<UserProfile>> loaded;
+    private final Map<String, MutableLiveData<UserProfile>> queued = new LinkedHashMap<>();
+    private boolean frameScheduled;
+
+    /**
+     * @param cacheLookup returns the repo's existing LiveData for a uid, or null if not cached
+     * @param mapper      converts fetched data models into domain objects
+     * @param writeBack   receives every batch of fetched data models, e.g. to persist them
+     */
+    UserProfileBatchLoader(CollectionReference users,
+                           Function<String, LiveData<UserProfile>> cacheLookup,
+                           Function<UserProfileDataModel, UserProfile> mapper,
+                           Consumer<List<UserProfileDataModel>> writeBack) {
+        this.users = users;
+        this.cacheLookup = cacheLookup;
+        this.mapper = mapper;
+        this.writeBack = writeBack;
+        this.loaded = CacheBuilder.newBuilder()
+                .maximumSize(500)
+                .expireAfterWrite(10, TimeUnit.MINUTES)
+                .build();
+    }
+
+    LiveData<UserProfile> load(String uid) {
+        LiveData<UserProfile> cached = cacheLookup.apply(uid);
+        if (cached != null) {
+            return cached;
+        }
+
+        MutableLiveData<UserProfile> liveData = loaded.getIfPresent(uid);
+        if (liveData == null) {
+            liveData = queued.get(uid);
+        }
+        if (liveData == null) {
+            liveData = new MutableLiveData<>();
+            queued.put(uid, liveData);
+            loaded.put(uid, liveData);
+            scheduleFlush();
+        }
+        return liveData;
+    }
+
+    private void scheduleFlush() {
+        if (!frameScheduled) {
+            frameScheduled = true;
+            Choreographer.getInstance().postFrameCallback(frameTimeNanos -> flush());
+        }
+    }
+
+    private void flush() {
+        frameScheduled = false;
+        List<String> uids = new ArrayList<>(queued.keySet());
+        Map<String, MutableLiveData<UserProfile>> batch = new LinkedHashMap<>(queued);
+        queued.clear();
+
+        for (int i = 0; i < uids.size(); i += MAX_CHUNK_SIZE) {
+            List<String> chunk = uids.subList(i, Math.min(i + MAX_CHUNK_SIZE, uids.size()));
+            Timber.d("Batch loading %d user profiles", chunk.size());
+            users.whereIn(FieldPath.documentId(), new ArrayList<>(chunk))
+                    .get()
+                    .addOnSuccessListener(snapshots -> {
+                        List<UserProfileDataModel> dataModels = new ArrayList<>();
+                        Set<String> missing = new HashSet<>(chunk);
+                        for (DocumentSnapshot snapshot : snapshots.getDocuments()) {
+                            UserProfileDataModel dataModel = DocumentMappers.toUserProfileDataModel(snapshot);
+                            MutableLiveData<UserProfile> liveData = batch.get(snapshot.getId());
+                            if (dataModel != null && liveData != null) {
+                                dataModels.add(dataModel);
+                                liveData.setValue(mapper.apply(dataModel));
+                                missing.remove(snapshot.getId());
+                            }
+                        }
+                        for (String uid : missing) {
+                            batch.get(uid).setValue(null);
+                        }
+                        writeBack.accept(dataModels);
+                    })
+                    .addOnFailureListener(e -> {
+                        Timber.d(e, "Batch load failed");
+                        loaded.invalidateAll(chunk);
+                        for (String uid : chunk) {
+                            batch.get(uid).setValue(null);
+                        }
+                    });
+        }
+    }
+}
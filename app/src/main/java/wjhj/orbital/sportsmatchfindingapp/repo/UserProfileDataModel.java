@@ -1,5 +1,7 @@
 package wjhj.orbital.sportsmatchfindingapp.repo;
 
+import androidx.room.Ignore;
+
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -29,6 +31,7 @@ class UserProfileDataModel {
     public UserProfileDataModel() {
     }
 
+    @Ignore
     UserProfileDataModel(UserProfile userProfile) {
         displayName = userProfile.getDisplayName();
         gender = userProfile.getGender();
@@ -92,6 +95,54 @@ class UserProfileDataModel {
         return games;
     }
 
+    public void setDisplayName(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public void setGender(Gender gender) {
+        this.gender = gender;
+    }
+
+    public void setBirthday(String birthday) {
+        this.birthday = birthday;
+    }
+
+    public void setCountry(Country country) {
+        this.country = country;
+    }
+
+    public void setUid(String uid) {
+        this.uid = uid;
+    }
+
+    public void setBio(String bio) {
+        this.bio = bio;
+    }
+
+    public void setDisplayPicUri(String displayPicUri) {
+        this.displayPicUri = displayPicUri;
+    }
+
+    public void setPreferences(List<Sport> preferences) {
+        this.preferences = preferences;
+    }
+
+    public void setFriendUids(List<String> friendUids) {
+        this.friendUids = friendUids;
+    }
+
+    public void setSentFriendRequests(List<String> sentFriendRequests) {
+        this.sentFriendRequests = sentFriendRequests;
+    }
+
+    public void setReceivedFriendRequests(List<String> receivedFriendRequests) {
+        this.receivedFriendRequests = receivedFriendRequests;
+    }
+
+    public void setGames(Map<String, List<String>> games) {
+        this.games = games;
+    }
+
 
     private Map<String, List<String>> convertGames(Map<GameStatus, List<String>> oldGames) {
         Map<String, List<String>> newGames = new HashMap<>();
@@ -0,0 +1,31 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import androidx.annotation.NonNull;
+import androidx.room.Embedded;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+// Room row wrapping the same data model that is stored in Firestore.
+@SuppressWarnings("WeakerAccess")
+@Entity(tableName = "user_profiles")
+class UserProfileEntity {
+    @PrimaryKey
+    @NonNull
+    public String uid;
+
+    public long cachedAt;
+
+    @Embedded(prefix = "data_")
+    public UserProfileDataModel data;
+
+    // Mandatory no args constructor
+    public UserProfileEntity() {
+        uid = "";
+    }
+
+    UserProfileEntity(@NonNull String uid, UserProfileDataModel data) {
+        this.uid = uid;
+        this.data = data;
+        this.cachedAt = System.currentTimeMillis();
+    }
+}
@@ -45,6 +45,7 @@ public class DisplayUserProfileFragment extends Fragment implements FriendProfil
 
     public static final String DISPLAY_PROFILE_TAG = "display_profile: ";
     private static final String DISPLAYED_USER_UID_TAG = "user_uid";
+    private static final int LOAD_MORE_THRESHOLD = 5;
 
     private DisplayUserProfileFragmentBinding binding;
     private DisplayUserProfileViewModel viewModel;
@@ -226,20 +227,31 @@ public class DisplayUserProfileFragment extends Fragment implements FriendProfil
             startActivity(intent);
         });
 
+        Runnable loadMore;
         if (viewModel.isCurrentUser()) {
             viewModel.getPastGames().observe(getViewLifecycleOwner(), games -> {
                 Collections.sort(games, (game1, game2) -> game2.getStartDateTime().compareTo(game1.getStartDateTime()));
                 adapter.updateGames(games);
             });
+            loadMore = viewModel::loadMorePastGames;
         } else {
             viewModel.getUpcomingGames().observe(getViewLifecycleOwner(), games -> {
                 Collections.sort(games, (game1, game2) -> game1.getStartDateTime().compareTo(game2.getStartDateTime()));
                 adapter.updateGames(games);
             });
+            loadMore = viewModel::loadMoreUpcomingGames;
         }
 
         recyclerView.setLayoutManager(manager);
         recyclerView.setAdapter(adapter);
+        recyclerView.addOnScrollListener(new RecyclerView.OnScrollListener() {
+            @Override
+            public void onScrolled(@NonNull RecyclerView recyclerView, int dx, int dy) {
+                if (manager.findLastVisibleItemPosition() >= adapter.getItemCount() - LOAD_MORE_THRESHOLD) {
+                    loadMore.run();
+                }
+            }
+        });
     }
 
     @Override
@@ -284,7 +296,7 @@ public class DisplayUserProfileFragment extends Fragment implements FriendProfil
         Authentications auths = new Authentications();
         auths.logOutFirebase();
         auths.logOutGoogle(requireContext());
-        SportalRepo.getInstance().refreshCache();
+        SportalRepo.getInstance().clearLocalData();
         Intent logoutIntent = new Intent(requireContext(), LoginActivity.class);
         logoutIntent.addFlags(Intent.FLAG_ACTIVITY_CLEAR_TOP | Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_CLEAR_TASK );
         startActivity(logoutIntent);
@@ -3,7 +3,6 @@ package wjhj.orbital.sportsmatchfindingapp.user;
 import android.net.Uri;
 
 import androidx.lifecycle.LiveData;
-import androidx.lifecycle.MediatorLiveData;
 import androidx.lifecycle.MutableLiveData;
 import androidx.lifecycle.Transformations;
 import androidx.lifecycle.ViewModel;
@@ -14,19 +13,17 @@ import com.sendbird.android.GroupChannel;
 import com.sendbird.android.GroupChannelParams;
 import com.sendbird.android.SendBirdException;
 
-import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import timber.log.Timber;
-import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.GameStatus;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
 import wjhj.orbital.sportsmatchfindingapp.maps.Country;
 import wjhj.orbital.sportsmatchfindingapp.messaging.SendBirdConstants;
+import wjhj.orbital.sportsmatchfindingapp.repo.GameMembershipPager;
 import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
-import wjhj.orbital.sportsmatchfindingapp.utils.BatchTransformations;
 import wjhj.orbital.sportsmatchfindingapp.utils.Result;
 
 public class DisplayUserProfileViewModel extends ViewModel {
@@ -39,8 +36,8 @@ public class DisplayUserProfileViewModel extends ViewModel {
     private LiveData<Boolean> isFriend;
 
     private LiveData<Map<GameStatus, List<String>>> allGameIds;
-    private LiveData<List<Game>> pastGames;
-    private LiveData<List<Game>> upcomingGames;
+    private GameMembershipPager pastGames;
+    private GameMembershipPager upcomingGames;
     private LiveData<Integer> numGamesPlayed;
     private LiveData<List<String>> allFriendUids;
     private LiveData<List<UserProfile>> allFriends;
@@ -114,37 +111,33 @@ public class DisplayUserProfileViewModel extends ViewModel {
         return displayPicUri;
     }
 
-    public LiveData<List<Game>> getPastGames() {
+    public LiveData<List<GameSummary>> getPastGames() {
         if (pastGames == null) {
-            pastGames = loadGames(GameStatus.COMPLETED);
+            pastGames = repo.getPastGames(mDisplayedUserUid);
+            pastGames.loadNextPage();
         }
-        return pastGames;
+        return pastGames.getGames();
     }
 
-    public LiveData<List<Game>> getUpcomingGames() {
+    public LiveData<List<GameSummary>> getUpcomingGames() {
         if (upcomingGames == null) {
-            upcomingGames = loadGames(GameStatus.PENDING);
+            upcomingGames = repo.getUpcomingGames(mDisplayedUserUid);
+            upcomingGames.loadNextPage();
+        }
+        return upcomingGames.getGames();
+    }
+
+    // Called as the games list nears its end.
+    void loadMorePastGames() {
+        if (pastGames != null) {
+            pastGames.loadNextPage();
+        }
+    }
+
+    void loadMoreUpcomingGames() {
+        if (upcomingGames != null) {
+            upcomingGames.loadNextPage();
         }
-        return upcomingGames;
-    }
-
-    private LiveData<List<Game>> loadGames(GameStatus gameStatus) {
-        return Transformations.switchMap(allGameIds, gameIds -> {
-            MediatorLiveData<List<Game>> mediatorLiveData = new MediatorLiveData<>();
-            List<String> pastGameIds = gameIds.get(gameStatus);
-            Map<String, Game> games = new HashMap<>();
-
-            if (pastGameIds != null) {
-                for (String id : pastGameIds) {
-                    mediatorLiveData.addSource(repo.getGame(id), game -> {
-                        games.put(game.getUid(), game);
-                        mediatorLiveData.postValue(new ArrayList<>(games.values()));
-                    });
-                }
-            }
-            mediatorLiveData.postValue(new ArrayList<>(games.values()));
-            return mediatorLiveData;
-        });
     }
 
     public LiveData<Integer> getNumGamesPlayed() {
@@ -152,7 +145,7 @@ public class DisplayUserProfileViewModel extends ViewModel {
     }
 
     private LiveData<List<UserProfile>> loadFriends() {
-        return BatchTransformations.switchMapList(allFriendUids, repo::getUser, UserProfile::getUid);
+        return repo.loadUsers(allFriendUids);
     }
 
     public LiveData<List<UserProfile>> getFriends() {
@@ -10,13 +10,11 @@ import android.widget.TextView;
 import androidx.annotation.NonNull;
 import androidx.recyclerview.widget.RecyclerView;
 
-import com.bumptech.glide.Glide;
-import com.bumptech.glide.request.RequestOptions;
-
 import java.util.ArrayList;
 import java.util.List;
 
 import wjhj.orbital.sportsmatchfindingapp.R;
+import wjhj.orbital.sportsmatchfindingapp.utils.BindingAdapters;
 
 public class FriendProfilesAdapter extends RecyclerView.Adapter<FriendProfilesAdapter.ProfileIconViewHolder> {
 
@@ -66,10 +64,7 @@ public class FriendProfilesAdapter extends RecyclerView.Adapter<FriendProfilesAd
         }
 
         void setUserProfile(Uri displayPicUri, String name, String uid) {
-            Glide.with(displayPicView)
-                    .load(displayPicUri)
-                    .apply(RequestOptions.circleCropTransform())
-                    .into(displayPicView);
+            BindingAdapters.setCircularImageResources(displayPicView, displayPicUri);
             nameView.setText(name);
             itemView.setOnClickListener(v -> listener.onUserProfileClick(uid));
         }
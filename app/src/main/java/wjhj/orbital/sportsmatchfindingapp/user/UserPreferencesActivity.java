@@ -87,7 +87,7 @@ public class UserPreferencesActivity extends AppCompatActivity implements DatePi
         initSportsPreferencePicker(binding.sportsPreferenceRecyclerView);
 
         binding.preferencesDoneButton.setOnClickListener(view ->
-                viewModel.updateProfile(displayName, currUser.getUid()));
+                viewModel.updateProfile(getContentResolver(), displayName, currUser.getUid()));
 
         viewModel.getSuccess().observe(this, success -> {
             if (success) {
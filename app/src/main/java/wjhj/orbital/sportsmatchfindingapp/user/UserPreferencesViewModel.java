@@ -1,5 +1,6 @@
 package wjhj.orbital.sportsmatchfindingapp.user;
 
+import android.content.ContentResolver;
 import android.net.Uri;
 import android.util.Log;
 import android.widget.RadioGroup;
@@ -164,7 +165,7 @@ public class UserPreferencesViewModel extends ViewModel {
         });
     }
 
-    void updateProfile(String displayName, String currUserUid) {
+    void updateProfile(ContentResolver resolver, String displayName, String currUserUid) {
         StreamSupport.stream(validationsList).forEach(ValidationInput::validate);
 
         if (StreamSupport.stream(validationsList)
@@ -199,9 +200,11 @@ public class UserPreferencesViewModel extends ViewModel {
 
 
             Uri selectedUri = displayPicUri.getValue();
-            if (selectedUri != null) {
+            // The current picture is already uploaded; only a newly picked one is.
+            if (selectedUri != null
+                    && (editProfile == null || !selectedUri.equals(editProfile.getDisplayPicUri()))) {
                 Authentications auths = new Authentications();
-                auths.uploadDisplayImageAndGetUri(selectedUri, currUserUid)
+                auths.uploadDisplayImageAndGetUri(resolver, selectedUri, currUserUid)
                         .addOnSuccessListener(uri ->
                                 repo.updateUser(currUserUid, userProfile.withDisplayPicUri(uri)))
                         .addOnFailureListener(e ->
@@ -17,7 +17,7 @@ import java.util.List;
 import java.util.Map;
 
 import timber.log.Timber;
-import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.GameSummary;
 import wjhj.orbital.sportsmatchfindingapp.game.GameStatus;
 import wjhj.orbital.sportsmatchfindingapp.game.Sport;
 import wjhj.orbital.sportsmatchfindingapp.repo.SportalRepo;
@@ -27,14 +27,14 @@ public class UserProfileViewModel extends ViewModel {
     private SportalRepo repo;
     private LiveData<UserProfile> currUser;
     private LiveData<Map<GameStatus, List<String>>> gameIds;
-    private LiveData<Map<GameStatus, List<Game>>> games;
+    private LiveData<Map<GameStatus, List<GameSummary>>> gameSummaries;
     private LiveData<ImmutableList<Sport>> sportsPreferences;
 
     public UserProfileViewModel(String userUid) {
         repo = SportalRepo.getInstance();
         currUser = repo.getUser(userUid);
         gameIds = Transformations.map(currUser, UserProfile::getGames);
-        games = loadAllGames();
+        gameSummaries = loadAllGameSummaries();
         sportsPreferences = Transformations.map(currUser, UserProfile::getPreferences);
     }
 
@@ -46,21 +46,21 @@ public class UserProfileViewModel extends ViewModel {
         return gameIds;
     }
 
-    public LiveData<Map<GameStatus, List<Game>>> getGames() {
-        return games;
+    public LiveData<Map<GameStatus, List<GameSummary>>> getGameSummaries() {
+        return gameSummaries;
     }
 
-    private LiveData<Map<GameStatus, List<Game>>> loadAllGames() {
+    private LiveData<Map<GameStatus, List<GameSummary>>> loadAllGameSummaries() {
         return Transformations.switchMap(gameIds, newGameIds -> {
-            MediatorLiveData<Map<GameStatus, List<Game>>> mapMediatorLiveData = new MediatorLiveData<>();
-            Map<GameStatus, List<Game>> allGamesMap = new EnumMap<>(GameStatus.class);
+            MediatorLiveData<Map<GameStatus, List<GameSummary>>> mapMediatorLiveData = new MediatorLiveData<>();
+            Map<GameStatus, List<GameSummary>> allGamesMap = new EnumMap<>(GameStatus.class);
 
             for (Map.Entry<GameStatus, List<String>> entry : newGameIds.entrySet()) {
-                HashMap<String, Game> games = new HashMap<>();
+                HashMap<String, GameSummary> games = new HashMap<>();
                 List<String> ids = entry.getValue();
 
                 for (String id : ids) {
-                    mapMediatorLiveData.addSource(repo.getGame(id), value -> {
+                    mapMediatorLiveData.addSource(repo.getGameSummary(id), value -> {
                         games.put(value.getUid(), value);
                         allGamesMap.put(entry.getKey(), new ArrayList<>(games.values()));
 
@@ -11,6 +11,7 @@ import java.util.List;
 import java9.util.function.Function;
 
 public class BatchTransformations {
+    private static final long FIRST_EMISSION_TIMEOUT_MILLIS = 300;
 
     public static <S, T> LiveData<List<T>> switchMapList(LiveData<List<S>> source, Function<S, LiveData<T>> loader,
                                                    Function<T, String> uniqueMapper) {
@@ -27,4 +28,16 @@ public class BatchTransformations {
             return mediatorLiveData;
         });
     }
+
+    /**
+     * Like {@link #switchMapList}, but emits once when every item has loaded (or after a short
+     * timeout) and afterwards only when an item actually changes, batching changes that arrive
+     * together. Preferred for long lists backing a RecyclerView.
+     */
+    public static <S, T> LiveData<List<T>> coalescingSwitchMapList(LiveData<List<S>> source,
+                                                                   Function<S, LiveData<T>> loader,
+                                                                   Function<T, String> uniqueMapper) {
+        return Transformations.switchMap(source, items ->
+                new CoalescingListLiveData<>(items, loader, uniqueMapper, FIRST_EMISSION_TIMEOUT_MILLIS));
+    }
 }
@@ -45,11 +45,21 @@ public class BindingAdapters {
         Glide.with(view).load(uri).into(view);
     }
 
+    /**
+     * Loads the display picture variant that fits the view once Glide knows its size, falling
+     * back to the given picture if the variant cannot be loaded.
+     */
     @BindingAdapter("android:circularImageUri")
     public static void setCircularImageResources(ImageView view, Uri uri) {
+        RequestOptions circle = RequestOptions.circleCropTransform();
+        if (uri == null || !DisplayImageVariant.isVariantUri(uri)) {
+            Glide.with(view).load(uri).apply(circle).into(view);
+            return;
+        }
         Glide.with(view)
-                .load(uri)
-                .apply(RequestOptions.circleCropTransform())
+                .load(new DisplayImageModelLoader.DisplayImage(uri))
+                .apply(circle)
+                .error(Glide.with(view).load(uri).apply(circle))
                 .into(view);
     }
 
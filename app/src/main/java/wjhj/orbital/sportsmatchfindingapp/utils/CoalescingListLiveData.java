@@ -0,0 +1,104 @@
+package wjhj.orbital.sportsmatchfindingapp.utils;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import androidx.lifecycle.LiveData;
+import androidx.lifecycle.MediatorLiveData;
+import androidx.lifecycle.Observer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java9.util.function.Function;
+import timber.log.Timber;
+
+/**
+ * Merges the LiveData loaded for every item of a list into a single list. The first value is
+ * held back until every source has emitted once or the timeout elapses; after that, updates that
+ * arrive within the same main thread pass are emitted together, and updates that do not change
+ * an item are dropped.
+ */
+class CoalescingListLiveData<S, T> extends MediatorLiveData<List<T>> {
+    private final Handler handler = new Handler(Looper.getMainLooper());
+    private final Function<T, String> uniqueMapper;
+    private final Map<String, T> values = new LinkedHashMap<>();
+    private final Runnable emit = this::emit;
+
+    private int awaitingFirstValue;
+    private boolean firstEmitted;
+    private boolean emitScheduled;
+    private int changedSinceEmit;
+
+    CoalescingListLiveData(List<S> items, Function<S, LiveData<T>> loader,
+                           Function<T, String> uniqueMapper, long firstEmissionTimeoutMillis) {
+        this.uniqueMapper = uniqueMapper;
+
+        // The same LiveData cannot be added to a mediator twice, so duplicate items share one source.
+        Set<LiveData<T>> sources = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (S item : items) {
+            LiveData<T> source = loader.apply(item);
+            if (sources.add(source)) {
+                awaitingFirstValue++;
+                addSource(source, new SourceObserver());
+            }
+        }
+
+        if (awaitingFirstValue == 0) {
+            emit();
+        } else {
+            emitScheduled = true;
+            handler.postDelayed(emit, firstEmissionTimeoutMillis);
+        }
+    }
+
+    private void onSourceChanged(T value, boolean firstValue) {
+        if (firstValue) {
+            awaitingFirstValue--;
+        }
+        if (value != null) {
+            T previous = values.put(uniqueMapper.apply(value), value);
+            if (!value.equals(previous)) {
+                changedSinceEmit++;
+            }
+        }
+
+        if (!firstEmitted) {
+            if (awaitingFirstValue == 0) {
+                handler.removeCallbacks(emit);
+                handler.post(emit);
+            }
+        } else if (changedSinceEmit > 0 && !emitScheduled) {
+            emitScheduled = true;
+            handler.post(emit);
+        }
+    }
+
+    private void emit() {
+        emitScheduled = false;
+        if (firstEmitted && changedSinceEmit == 0) {
+            return;
+        }
+        Timber.d("Emitting %d changed of %d items%s", changedSinceEmit, values.size(),
+                firstEmitted ? "" : " (first emission)");
+        firstEmitted = true;
+        changedSinceEmit = 0;
+        setValue(new ArrayList<>(values.values()));
+    }
+
+    private class SourceObserver implements Observer<T> {
+        private boolean seen;
+
+        @Override
+        public void onChanged(T value) {
+            boolean firstValue = !seen;
+            seen = true;
+            onSourceChanged(value, firstValue);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package wjhj.orbital.sportsmatchfindingapp.utils;
+
+import android.net.Uri;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.Nullable;
+
+import com.bumptech.glide.Priority;
+import com.bumptech.glide.load.DataSource;
+import com.bumptech.glide.load.Options;
+import com.bumptech.glide.load.data.DataFetcher;
+import com.bumptech.glide.load.model.GlideUrl;
+import com.bumptech.glide.load.model.ModelLoader;
+import com.bumptech.glide.load.model.ModelLoaderFactory;
+import com.bumptech.glide.load.model.MultiModelLoaderFactory;
+import com.bumptech.glide.request.target.Target;
+import com.bumptech.glide.signature.ObjectKey;
+import com.google.android.gms.tasks.Tasks;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.firebase.storage.FirebaseStorage;
+import com.google.firebase.storage.StorageReference;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Loads the {@link DisplayImageVariant} of a display picture that fits the size Glide resolved
+ * for the target, so a view that has not been laid out yet still gets the right variant. The
+ * model is the download URL of the large variant; the download URL of each other variant is
+ * read from Storage the first time it is needed and remembered.
+ */
+public class DisplayImageModelLoader implements ModelLoader<DisplayImageModelLoader.DisplayImage, InputStream> {
+    private static final long DOWNLOAD_URL_TIMEOUT_SECONDS = 15;
+    private static final Cache<String, Uri> downloadUrls = CacheBuilder.newBuilder()
+            .maximumSize(500)
+            .build();
+
+    private final ModelLoader<GlideUrl, InputStream> urlLoader;
+
+    DisplayImageModelLoader(ModelLoader<GlideUrl, InputStream> urlLoader) {
+        this.urlLoader = urlLoader;
+    }
+
+    @Nullable
+    @Override
+    public LoadData<InputStream> buildLoadData(@NonNull DisplayImage model, int width, int height,
+                                               @NonNull Options options) {
+        DisplayImageVariant variant = width == Target.SIZE_ORIGINAL || height == Target.SIZE_ORIGINAL
+                ? DisplayImageVariant.LARGE
+                : DisplayImageVariant.forSize(Math.max(width, height));
+        return new LoadData<>(new ObjectKey(model.uri + "#" + variant),
+                new Fetcher(model.uri, variant, width, height, options));
+    }
+
+    @Override
+    public boolean handles(@NonNull DisplayImage model) {
+        return true;
+    }
+
+    // A display picture uploaded in variants, given by the download URL of its large variant.
+    public static final class DisplayImage {
+        private final Uri uri;
+
+        public DisplayImage(Uri uri) {
+            this.uri = uri;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof DisplayImage && uri.equals(((DisplayImage) o).uri);
+        }
+
+        @Override
+        public int hashCode() {
+            return uri.hashCode();
+        }
+    }
+
+    // Registered with Glide once, from the Application.
+    public static class Factory implements ModelLoaderFactory<DisplayImage, InputStream> {
+        @NonNull
+        @Override
+        public ModelLoader<DisplayImage, InputStream> build(@NonNull MultiModelLoaderFactory multiFactory) {
+            return new DisplayImageModelLoader(multiFactory.build(GlideUrl.class, InputStream.class));
+        }
+
+        @Override
+        public void teardown() {
+        }
+    }
+
+    // Runs on a Glide source thread, so it may wait for the download URL.
+    private class Fetcher implements DataFetcher<InputStream> {
+        private final Uri largeUri;
+        private final DisplayImageVariant variant;
+        private final int width;
+        private final int height;
+        private final Options options;
+        private volatile boolean cancelled;
+        private volatile DataFetcher<InputStream> delegate;
+
+        Fetcher(Uri largeUri, DisplayImageVariant variant, int width, int height, Options options) {
+            this.largeUri = largeUri;
+            this.variant = variant;
+            this.width = width;
+            this.height = height;
+            this.options = options;
+        }
+
+        @Override
+        public void loadData(@NonNull Priority priority, @NonNull DataCallback<? super InputStream> callback) {
+            Uri url;
+            try {
+                url = downloadUrl();
+            } catch (ExecutionException | TimeoutException e) {
+                callback.onLoadFailed(e);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                callback.onLoadFailed(e);
+                return;
+            }
+
+            LoadData<InputStream> loadData =
+                    urlLoader.buildLoadData(new GlideUrl(url.toString()), width, height, options);
+            if (loadData == null) {
+                callback.onLoadFailed(new IOException("Cannot load " + url));
+                return;
+            }
+            delegate = loadData.fetcher;
+            if (cancelled) {
+                callback.onLoadFailed(new IOException("Cancelled"));
+                return;
+            }
+            delegate.loadData(priority, callback);
+        }
+
+        private Uri downloadUrl() throws ExecutionException, InterruptedException, TimeoutException {
+            if (variant == DisplayImageVariant.LARGE) {
+                return largeUri;
+            }
+            String key = largeUri + "#" + variant;
+            Uri url = downloadUrls.getIfPresent(key);
+            if (url == null) {
+                StorageReference large = FirebaseStorage.getInstance().getReferenceFromUrl(largeUri.toString());
+                StorageReference folder = large.getParent();
+                if (folder == null) {
+                    throw new ExecutionException(new IOException("Not a display image: " + largeUri));
+                }
+                url = Tasks.await(folder.child(variant.fileName()).getDownloadUrl(),
+                        DOWNLOAD_URL_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+                downloadUrls.put(key, url);
+            }
+            return url;
+        }
+
+        @Override
+        public void cleanup() {
+            DataFetcher<InputStream> current = delegate;
+            if (current != null) {
+                current.cleanup();
+            }
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            DataFetcher<InputStream> current = delegate;
+            if (current != null) {
+                current.cancel();
+            }
+        }
+
+        @NonNull
+        @Override
+        public Class<InputStream> getDataClass() {
+            return InputStream.class;
+        }
+
+        @NonNull
+        @Override
+        public DataSource getDataSource() {
+            return DataSource.REMOTE;
+        }
+    }
+}
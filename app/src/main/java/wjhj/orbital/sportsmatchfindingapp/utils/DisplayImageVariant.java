@@ -0,0 +1,61 @@
+package wjhj.orbital.sportsmatchfindingapp.utils;
+
+import android.net.Uri;
+
+/**
+ * The sizes a display picture is uploaded in, each a WebP image no longer than its max edge.
+ * Variants of one upload sit next to each other in Storage, each with its own download URL.
+ */
+public enum DisplayImageVariant {
+    SMALL("small", 192),
+    MEDIUM("medium", 480),
+    LARGE("large", 1080);
+
+    public static final String FOLDER = "display-images";
+    public static final String CONTENT_TYPE = "image/webp";
+
+    private final String name;
+    private final int maxEdgePx;
+
+    DisplayImageVariant(String name, int maxEdgePx) {
+        this.name = name;
+        this.maxEdgePx = maxEdgePx;
+    }
+
+    public int getMaxEdgePx() {
+        return maxEdgePx;
+    }
+
+    // Storage path of this variant of a user's display picture.
+    public String storagePath(String uid) {
+        return FOLDER + "/" + uid + "/" + fileName();
+    }
+
+    public String fileName() {
+        return name + ".webp";
+    }
+
+    // The smallest variant at least as large as the given size, e.g. of the view showing it.
+    public static DisplayImageVariant forSize(int sizePx) {
+        for (DisplayImageVariant variant : values()) {
+            if (variant.maxEdgePx >= sizePx) {
+                return variant;
+            }
+        }
+        return LARGE;
+    }
+
+    // Whether the URL is the download URL of a variant, rather than e.g. an older upload.
+    public static boolean isVariantUri(Uri uri) {
+        String path = uri.getEncodedPath();
+        if (path == null || !path.contains(FOLDER + "%2F")) {
+            return false;
+        }
+        for (DisplayImageVariant variant : values()) {
+            if (path.endsWith("%2F" + variant.fileName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,111 @@
+package wjhj.orbital.sportsmatchfindingapp.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import java9.util.function.Function;
+
+/**
+ * A list of uniquely keyed items kept in comparator order as they are added, changed and
+ * removed. Each change finds its position by binary search, so an update that touches a few
+ * items costs a few O(log n) searches instead of a full sort. The comparator must be a total
+ * order, e.g. by ending with the key, for an item to be found again by its position.
+ */
+public class RankedList<T> {
+    private final Function<T, String> keyMapper;
+    private final List<T> items = new ArrayList<>();
+    private final Map<String, T> byKey = new HashMap<>();
+    private Comparator<T> comparator;
+
+    public RankedList(Function<T, String> keyMapper, Comparator<T> comparator) {
+        this.keyMapper = keyMapper;
+        this.comparator = comparator;
+    }
+
+    // Adds the item or moves it to its new position. Returns false if an equal item was present.
+    public boolean put(T item) {
+        String key = keyMapper.apply(item);
+        T previous = byKey.put(key, item);
+        if (previous != null) {
+            if (previous.equals(item)) {
+                byKey.put(key, previous);
+                return false;
+            }
+            items.remove(indexOf(previous));
+        }
+        int index = Collections.binarySearch(items, item, comparator);
+        items.add(index < 0 ? -index - 1 : index, item);
+        return true;
+    }
+
+    public boolean remove(String key) {
+        T previous = byKey.remove(key);
+        if (previous == null) {
+            return false;
+        }
+        items.remove(indexOf(previous));
+        return true;
+    }
+
+    /**
+     * Makes the list hold exactly the given items, touching only those that were added, changed
+     * or removed. Returns whether anything changed.
+     */
+    public boolean replaceAll(Collection<T> newItems) {
+        boolean changed = false;
+        Set<String> keys = new HashSet<>();
+        for (T item : newItems) {
+            keys.add(keyMapper.apply(item));
+            changed |= put(item);
+        }
+        if (keys.size() < byKey.size()) {
+            for (String key : new ArrayList<>(byKey.keySet())) {
+                if (!keys.contains(key)) {
+                    changed |= remove(key);
+                }
+            }
+        }
+        return changed;
+    }
+
+    // Re-sorts everything once; used when the ranking itself changes.
+    public void setComparator(Comparator<T> comparator) {
+        this.comparator = comparator;
+        Collections.sort(items, comparator);
+    }
+
+    public void clear() {
+        items.clear();
+        byKey.clear();
+    }
+
+    public int size() {
+        return items.size();
+    }
+
+    // A copy of the items in rank order.
+    public List<T> toList() {
+        return new ArrayList<>(items);
+    }
+
+    private int indexOf(T item) {
+        int index = Collections.binarySearch(items, item, comparator);
+        if (index >= 0 && items.get(index) == item) {
+            return index;
+        }
+        // The ranking of the stored item changed under the comparator; fall back to a scan.
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i) == item) {
+                return i;
+            }
+        }
+        throw new IllegalStateException("Ranked item not found: " + keyMapper.apply(item));
+    }
+}
@@ -0,0 +1,136 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.common.base.Optional;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GameFilterIndexTest {
+    private static final LocalDate DAY = LocalDate.of(2026, 1, 1);
+
+    private GameFilterIndex index;
+    private List<Game> games;
+
+    @Before
+    public void setUp() {
+        index = new GameFilterIndex();
+        games = new ArrayList<>();
+    }
+
+    @Test
+    public void search_wrapsNightAroundMidnight() {
+        add("evening", "Evening futsal", DAY, LocalTime.of(19, 0));
+        add("late", "Late futsal", DAY, LocalTime.of(23, 30));
+        add("midnight", "Midnight futsal", DAY, LocalTime.of(0, 0));
+        add("early", "Early futsal", DAY, LocalTime.of(5, 59));
+        add("dawn", "Dawn futsal", DAY, LocalTime.of(6, 0));
+        add("dusk", "Dusk futsal", DAY, LocalTime.of(18, 59));
+
+        GameSearchFilter filter = footballFilter();
+        filter.addTimeOfDayQuery(TimeOfDay.NIGHT);
+
+        assertSearch(filter, "evening", "late", "midnight", "early");
+    }
+
+    @Test
+    public void search_matchesNothingWithoutSports() {
+        add("one", "Futsal", DAY, LocalTime.NOON);
+        add("two", "Tennis", DAY, LocalTime.of(20, 0));
+
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.setSkillLevelQuery(Arrays.asList(Difficulty.values()));
+        filter.setTimeOfDayQuery(Arrays.asList(TimeOfDay.values()));
+
+        assertSearch(filter);
+    }
+
+    @Test
+    public void search_includesBothEndsOfDateRange() {
+        for (int i = 0; i < 5; i++) {
+            add("day" + i, "Futsal", DAY.plusDays(i), LocalTime.NOON);
+        }
+
+        GameSearchFilter filter = footballFilter();
+        filter.setDateRangeQuery(DAY.plusDays(1), DAY.plusDays(3));
+
+        assertSearch(filter, "day1", "day2", "day3");
+    }
+
+    @Test
+    public void search_matchesNamesIgnoringCaseAndAccents() {
+        add("cafe", "Friday CAFÉ futsal", DAY, LocalTime.NOON);
+        add("park", "Park futsal", DAY, LocalTime.NOON);
+        add("other", "Cafeteria run", DAY, LocalTime.NOON);
+
+        GameSearchFilter filter = footballFilter();
+        filter.setNameQuery("café futsal");
+
+        assertSearch(filter, "cafe");
+    }
+
+    private GameSearchFilter footballFilter() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.addSportQuery(Sport.FOOTBALL);
+        return filter;
+    }
+
+    private void add(String uid, String name, LocalDate date, LocalTime time) {
+        Game game = Game.builder()
+                .withGameName(name)
+                .withSport(Sport.FOOTBALL)
+                .withLocation(new GeoPoint(1.3521, 103.8198))
+                .withPlaceName("Court")
+                .withMinPlayers(2)
+                .withMaxPlayers(10)
+                .withSkillLevel(Difficulty.BEGINNER)
+                .withDate(date)
+                .withTime(time)
+                .withDuration(Duration.ofHours(1))
+                .withUid(uid)
+                .withCreatorUid("creator")
+                .withDescription(Optional.absent())
+                .withGameBoardChannelUrl(Optional.absent())
+                .build();
+        games.add(game);
+        index.put(game);
+    }
+
+    // Checks the indexed search and the per-game check used for server results against each other.
+    private void assertSearch(GameSearchFilter filter, String... expectedUids) {
+        GameFilterIndex.FilterMask mask = GameFilterIndex.FilterMask.of(filter);
+        Set<String> expected = new HashSet<>(Arrays.asList(expectedUids));
+
+        Set<String> found = new HashSet<>();
+        for (Game game : index.search(mask)) {
+            found.add(game.getUid());
+        }
+        assertEquals(expected, found);
+
+        for (Game game : games) {
+            if (expected.contains(game.getUid())) {
+                assertTrue(game.getUid(), mask.matches(game));
+            } else {
+                assertFalse(game.getUid(), mask.matches(game));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameNameIndexTest {
+
+    @Test
+    public void normalize_foldsCaseAccentsAndPunctuation() {
+        assertEquals("cafe futsal night", GameNameIndex.normalize("  Café -- FUTSAL, night!  "));
+        assertEquals("", GameNameIndex.normalize(null));
+    }
+
+    @Test
+    public void substrings_coverEveryGramOfEachWord() {
+        List<String> grams = GameNameIndex.substrings("Sunday Futsal");
+
+        assertTrue(grams.contains("sund"));
+        assertTrue(grams.contains("sunday"));
+        assertTrue(grams.contains("nday"));
+        assertTrue(grams.contains("futsal"));
+        assertTrue(grams.contains("tsal"));
+        // Grams never span words.
+        assertFalse(grams.contains("ay f"));
+        for (String gram : grams) {
+            assertTrue(gram.length() >= GameNameIndex.MIN_GRAM && gram.length() <= GameNameIndex.MAX_GRAM);
+        }
+    }
+
+    @Test
+    public void substrings_areCapped() {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            name.append("abcdefghij".charAt(i % 10)).append("qrstuvwxyz".charAt(i * 7 % 10));
+        }
+
+        assertTrue(GameNameIndex.substrings(name.toString()).size() <= GameNameIndex.MAX_SUBSTRINGS);
+    }
+
+    @Test
+    public void queryTerm_isIndexedForEveryMatchingName() {
+        String term = GameNameIndex.queryTerm("night FUTSALS");
+
+        assertEquals("futsal", term);
+        assertTrue(GameNameIndex.substrings("Friday Futsals").contains(term));
+        assertTrue(GameNameIndex.substrings("futsal").contains(GameNameIndex.queryTerm("futs")));
+    }
+
+    @Test
+    public void queryTerm_isNullForShortQueries() {
+        assertNull(GameNameIndex.queryTerm("fc ab"));
+        assertNull(GameNameIndex.queryTerm(""));
+        assertNull(GameNameIndex.queryTerm(null));
+    }
+}
@@ -0,0 +1,123 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import org.junit.Test;
+import org.threeten.bp.LocalDate;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+import wjhj.orbital.sportsmatchfindingapp.game.TimeOfDay;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class GameQueryPlannerTest {
+
+    @Test
+    public void plan_isEmptyWithoutSports() {
+        assertTrue(GameQueryPlanner.plan(new GameSearchFilter(), true).isEmpty());
+        assertNull(GameQueryPlanner.planGeo(new GameSearchFilter(), true));
+    }
+
+    @Test
+    public void plan_leavesFullSelectionsUnconstrained() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.setSportQuery(Arrays.asList(Sport.values()));
+        filter.setSkillLevelQuery(Arrays.asList(Difficulty.values()));
+        filter.setTimeOfDayQuery(Arrays.asList(TimeOfDay.values()));
+
+        List<GameQueryPlan> plans = GameQueryPlanner.plan(filter, true);
+
+        assertEquals(1, plans.size());
+        assertTrue(plans.get(0).getSports().isEmpty());
+        assertTrue(plans.get(0).getSkillLevels().isEmpty());
+        assertTrue(plans.get(0).getTimesOfDay().isEmpty());
+    }
+
+    @Test
+    public void plan_dropsDuplicates() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.setSportQuery(Arrays.asList(Sport.FOOTBALL, Sport.FOOTBALL));
+
+        assertEquals(Collections.singletonList(Sport.FOOTBALL),
+                GameQueryPlanner.plan(filter, true).get(0).getSports());
+    }
+
+    @Test
+    public void plan_usesOneInClause() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.setSportQuery(Arrays.asList(Sport.FOOTBALL, Sport.TENNIS));
+        filter.setSkillLevelQuery(Arrays.asList(Difficulty.BEGINNER, Difficulty.ADVANCED));
+
+        List<GameQueryPlan> plans = GameQueryPlanner.plan(filter, true);
+
+        assertEquals(1, plans.size());
+        assertEquals(2, plans.get(0).getSports().size());
+        // The skill level is left to the client.
+        assertTrue(plans.get(0).getSkillLevels().isEmpty());
+    }
+
+    @Test
+    public void plan_splitsTimesOfDayWhenTheInClauseIsTaken() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.setSportQuery(Arrays.asList(Sport.FOOTBALL, Sport.TENNIS));
+        filter.setTimeOfDayQuery(Arrays.asList(TimeOfDay.MORNING, TimeOfDay.NIGHT));
+
+        List<GameQueryPlan> plans = GameQueryPlanner.plan(filter, true);
+
+        assertEquals(2, plans.size());
+        for (GameQueryPlan plan : plans) {
+            assertEquals(2, plan.getSports().size());
+            assertEquals(1, plan.getTimesOfDay().size());
+        }
+
+        // A location search keeps one query per cell, leaving the time of day to the client.
+        GameQueryPlan geo = GameQueryPlanner.planGeo(filter, true);
+        assertEquals(2, geo.getSports().size());
+        assertTrue(geo.getTimesOfDay().isEmpty());
+    }
+
+    @Test
+    public void plan_usesTheInClauseForTimesOfDayAlone() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.addSportQuery(Sport.SQUASH);
+        filter.setTimeOfDayQuery(Arrays.asList(TimeOfDay.MORNING, TimeOfDay.NIGHT));
+
+        List<GameQueryPlan> plans = GameQueryPlanner.plan(filter, true);
+
+        assertEquals(1, plans.size());
+        assertEquals(2, plans.get(0).getTimesOfDay().size());
+        assertEquals(2, GameQueryPlanner.planGeo(filter, true).getTimesOfDay().size());
+    }
+
+    @Test
+    public void plan_leavesTimesToTheClientUntilBackfilled() {
+        GameSearchFilter filter = new GameSearchFilter();
+        filter.setSportQuery(Arrays.asList(Sport.FOOTBALL, Sport.TENNIS));
+        filter.setTimeOfDayQuery(Arrays.asList(TimeOfDay.MORNING, TimeOfDay.NIGHT));
+        filter.setDateRangeQuery(LocalDate.of(2026, 1, 1), LocalDate.of(2026, 1, 7));
+
+        List<GameQueryPlan> plans = GameQueryPlanner.plan(filter, false);
+
+        assertEquals(1, plans.size());
+        assertTrue(plans.get(0).getTimesOfDay().isEmpty());
+        assertFalse(plans.get(0).hasDateRange());
+    }
+
+    @Test
+    public void indexDefinitionsJson_matchesCheckedInFile() throws Exception {
+        // Unit tests run from the module directory.
+        File file = new File("../firestore.indexes.json");
+        String checkedIn = new String(Files.readAllBytes(file.toPath()), StandardCharsets.UTF_8);
+
+        assertEquals("Regenerate firestore.indexes.json", GameQueryPlanner.indexDefinitionsJson(), checkedIn);
+    }
+}
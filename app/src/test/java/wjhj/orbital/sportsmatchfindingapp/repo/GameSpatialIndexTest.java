@@ -0,0 +1,219 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.common.base.Optional;
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.threeten.bp.Duration;
+import org.threeten.bp.LocalDate;
+import org.threeten.bp.LocalTime;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import wjhj.orbital.sportsmatchfindingapp.game.Difficulty;
+import wjhj.orbital.sportsmatchfindingapp.game.Game;
+import wjhj.orbital.sportsmatchfindingapp.game.Sport;
+
+import static org.junit.Assert.assertEquals;
+
+public class GameSpatialIndexTest {
+    private GameSpatialIndex index;
+    private List<Game> games;
+    private Random random;
+
+    @Before
+    public void setUp() {
+        index = new GameSpatialIndex();
+        games = new ArrayList<>();
+        random = new Random(42);
+        for (int i = 0; i < 2000; i++) {
+            games.add(game("game" + i, random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180));
+        }
+        // Clusters, so that leaves split deeply and some games share a spot.
+        for (int i = 0; i < 300; i++) {
+            games.add(game("sg" + i, 1.3 + random.nextDouble() * 0.1, 103.8 + random.nextDouble() * 0.1));
+            games.add(game("hall" + i, 1.3521, 103.8198));
+        }
+        // Either side of the antimeridian.
+        for (int i = 0; i < 200; i++) {
+            games.add(game("fiji" + i, -17 - random.nextDouble(), 179.5 + random.nextDouble() * 0.5));
+            games.add(game("fiji-west" + i, -17 - random.nextDouble(), -180 + random.nextDouble() * 0.5));
+        }
+        index.putAll(games);
+    }
+
+    @Test
+    public void withinRadius_matchesBruteForce() {
+        for (int i = 0; i < 300; i++) {
+            GeoPoint center = new GeoPoint(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            assertSearch(center, random.nextDouble() * 3000);
+        }
+    }
+
+    @Test
+    public void withinRadius_matchesBruteForceAroundClusters() {
+        for (double radiusKm : new double[]{0, 0.5, 2, 10, 50}) {
+            assertSearch(new GeoPoint(1.3521, 103.8198), radiusKm);
+            assertSearch(new GeoPoint(1.35, 103.85), radiusKm);
+        }
+    }
+
+    @Test
+    public void withinRadius_matchesBruteForceAcrossAntimeridian() {
+        for (double lng : new double[]{180, -180, 179.9, -179.9}) {
+            for (double radiusKm : new double[]{10, 60, 150, 1000}) {
+                assertSearch(new GeoPoint(-17.5, lng), radiusKm);
+            }
+        }
+    }
+
+    @Test
+    public void withinRadius_matchesBruteForceAroundPoles() {
+        for (double lat : new double[]{90, -90, 88, -89.5}) {
+            for (double radiusKm : new double[]{100, 500, 2500}) {
+                assertSearch(new GeoPoint(lat, random.nextDouble() * 360 - 180), radiusKm);
+            }
+        }
+    }
+
+    @Test
+    public void withinRadius_followsMovesAndRemovals() {
+        List<Game> moved = new ArrayList<>();
+        for (int i = 0; i < games.size(); i += 3) {
+            Game game = games.get(i);
+            moved.add(game.withLocation(new GeoPoint(random.nextDouble() * 180 - 90,
+                    random.nextDouble() * 360 - 180)));
+        }
+        List<Game> expected = new ArrayList<>();
+        for (int i = 0; i < games.size(); i++) {
+            if (i % 3 == 0) {
+                expected.add(moved.get(i / 3));
+            } else if (i % 3 == 1) {
+                index.remove(games.get(i).getUid());
+            } else {
+                expected.add(games.get(i));
+            }
+        }
+        index.putAll(moved);
+        games = expected;
+
+        assertEquals(games.size(), index.size());
+        for (int i = 0; i < 100; i++) {
+            GeoPoint center = new GeoPoint(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            assertSearch(center, random.nextDouble() * 3000);
+        }
+        assertSearch(new GeoPoint(1.3521, 103.8198), 1);
+    }
+
+    @Test
+    public void withinBox_matchesBruteForce() {
+        for (int i = 0; i < 300; i++) {
+            double south = random.nextDouble() * 180 - 90;
+            double north = south + random.nextDouble() * (90 - south);
+            double west = random.nextDouble() * 360 - 180;
+            double east = west + random.nextDouble() * 60;
+            assertBox(new GeoPoint(south, west), new GeoPoint(north, east > 180 ? east - 360 : east));
+        }
+        assertBox(new GeoPoint(1.3, 103.8), new GeoPoint(1.4, 103.9));
+        assertBox(new GeoPoint(-90, -180), new GeoPoint(90, 180));
+    }
+
+    @Test
+    public void withinBox_matchesBruteForceAcrossAntimeridian() {
+        assertBox(new GeoPoint(-18, 179.5), new GeoPoint(-17, -179.5));
+        assertBox(new GeoPoint(-17.5, 179.8), new GeoPoint(-17.2, -179.9));
+        assertBox(new GeoPoint(-60, 170), new GeoPoint(60, -170));
+        assertBox(new GeoPoint(-18, 180), new GeoPoint(-17, -180));
+    }
+
+    @Test
+    public void nearest_matchesBruteForce() {
+        for (int i = 0; i < 100; i++) {
+            GeoPoint center = new GeoPoint(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            assertNearest(center, 1 + random.nextInt(40));
+        }
+        assertNearest(new GeoPoint(1.3521, 103.8198), 5);
+        assertNearest(new GeoPoint(1.3521, 103.8198), 400);
+        assertNearest(new GeoPoint(-17.5, 180), 30);
+        assertNearest(new GeoPoint(90, 0), 10);
+        assertNearest(new GeoPoint(0, 0), games.size() + 10);
+        assertEquals(0, index.nearest(new GeoPoint(0, 0), 0).size());
+    }
+
+    private void assertBox(GeoPoint southWest, GeoPoint northEast) {
+        Set<String> expected = new HashSet<>();
+        for (Game game : games) {
+            if (GameSpatialIndex.inBox(game.getLocation(), southWest, northEast)) {
+                expected.add(game.getUid());
+            }
+        }
+        List<Game> found = index.withinBox(southWest, northEast);
+        Set<String> actual = uids(found);
+        assertEquals("duplicates in " + southWest + " to " + northEast, found.size(), actual.size());
+        assertEquals("games in " + southWest + " to " + northEast, expected, actual);
+    }
+
+    // Ties make the games ambiguous, so the distances are compared in order.
+    private void assertNearest(GeoPoint center, int count) {
+        List<Double> expected = new ArrayList<>();
+        for (Game game : games) {
+            expected.add(GeoHash.distanceKm(center, game.getLocation()));
+        }
+        Collections.sort(expected);
+        expected = expected.subList(0, Math.min(count, expected.size()));
+
+        List<Game> found = index.nearest(center, count);
+        List<Double> actual = new ArrayList<>();
+        for (Game game : found) {
+            actual.add(GeoHash.distanceKm(center, game.getLocation()));
+        }
+        assertEquals("duplicates near " + center, found.size(), uids(found).size());
+        assertEquals("nearest " + count + " to " + center, expected, actual);
+    }
+
+    private static Set<String> uids(List<Game> found) {
+        Set<String> uids = new HashSet<>();
+        for (Game game : found) {
+            uids.add(game.getUid());
+        }
+        return uids;
+    }
+
+    private void assertSearch(GeoPoint center, double radiusKm) {
+        Set<String> expected = new HashSet<>();
+        for (Game game : games) {
+            if (GeoHash.distanceKm(center, game.getLocation()) <= radiusKm) {
+                expected.add(game.getUid());
+            }
+        }
+        List<Game> found = index.withinRadius(center, radiusKm);
+        Set<String> actual = uids(found);
+        assertEquals("duplicates around " + center, found.size(), actual.size());
+        assertEquals("games within " + radiusKm + " km of " + center, expected, actual);
+    }
+
+    private static Game game(String uid, double lat, double lng) {
+        return Game.builder()
+                .withGameName("Game " + uid)
+                .withSport(Sport.FOOTBALL)
+                .withLocation(new GeoPoint(lat, lng))
+                .withPlaceName("Court")
+                .withMinPlayers(2)
+                .withMaxPlayers(10)
+                .withSkillLevel(Difficulty.BEGINNER)
+                .withDate(LocalDate.of(2026, 1, 1))
+                .withTime(LocalTime.NOON)
+                .withDuration(Duration.ofHours(1))
+                .withUid(uid)
+                .withCreatorUid("creator")
+                .withDescription(Optional.absent())
+                .withGameBoardChannelUrl(Optional.absent())
+                .build();
+    }
+}
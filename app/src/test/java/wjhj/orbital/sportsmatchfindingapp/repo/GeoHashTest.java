@@ -0,0 +1,109 @@
+package wjhj.orbital.sportsmatchfindingapp.repo;
+
+import com.google.firebase.firestore.GeoPoint;
+
+import org.junit.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class GeoHashTest {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    @Test
+    public void encode_matchesKnownHash() {
+        assertEquals("u4pruydqqv", GeoHash.encode(new GeoPoint(57.64911, 10.40744), 10));
+        assertEquals("w21z", GeoHash.encode(new GeoPoint(1.3521, 103.8198), 4));
+    }
+
+    @Test
+    public void coveringRanges_containEveryPointInRadius() {
+        Random random = new Random(42);
+        for (int i = 0; i < 300; i++) {
+            GeoPoint center = new GeoPoint(random.nextDouble() * 160 - 80, random.nextDouble() * 360 - 180);
+            double radiusKm = 0.5 + random.nextDouble() * 300;
+            assertCovers(center, radiusKm, random.nextInt(4), random);
+        }
+    }
+
+    @Test
+    public void coveringRanges_containPointsAcrossAntimeridian() {
+        Random random = new Random(7);
+        for (double lng : new double[]{179.95, -179.95, 180, -180}) {
+            for (double radiusKm : new double[]{1, 25, 200}) {
+                assertCovers(new GeoPoint(random.nextDouble() * 120 - 60, lng), radiusKm, 0, random);
+                assertCovers(new GeoPoint(0, lng), radiusKm, 3, random);
+            }
+        }
+    }
+
+    @Test
+    public void coveringRanges_containPointsAroundPoles() {
+        Random random = new Random(11);
+        for (double lat : new double[]{89.99, -89.99, 85}) {
+            for (double radiusKm : new double[]{5, 100, 1500}) {
+                assertCovers(new GeoPoint(lat, random.nextDouble() * 360 - 180), radiusKm, 1, random);
+            }
+        }
+    }
+
+    @Test
+    public void coveringRanges_areSortedDisjointAndCapped() {
+        Random random = new Random(3);
+        for (int i = 0; i < 200; i++) {
+            GeoPoint center = new GeoPoint(random.nextDouble() * 180 - 90, random.nextDouble() * 360 - 180);
+            List<String[]> ranges = GeoHash.coveringRanges(center, 0.1 + random.nextDouble() * 2000,
+                    random.nextInt(6));
+            assertTrue(ranges.size() <= GeoHash.MAX_CELLS);
+            for (int r = 0; r < ranges.size(); r++) {
+                assertTrue(ranges.get(r)[0].compareTo(ranges.get(r)[1]) < 0);
+                if (r > 0) {
+                    assertTrue(ranges.get(r - 1)[1].compareTo(ranges.get(r)[0]) <= 0);
+                }
+            }
+        }
+    }
+
+    // Samples points inside the circle, and on its edge, and checks each falls in some range.
+    private static void assertCovers(GeoPoint center, double radiusKm, int extraBits, Random random) {
+        List<String[]> ranges = GeoHash.coveringRanges(center, radiusKm, extraBits);
+        for (int i = 0; i < 200; i++) {
+            double distanceKm = i < 40 ? radiusKm * 0.999 : radiusKm * random.nextDouble();
+            GeoPoint point = destination(center, random.nextDouble() * 360, distanceKm);
+            assertTrue(GeoHash.distanceKm(center, point) <= radiusKm);
+            String hash = GeoHash.encode(point, GeoHash.STORED_PRECISION);
+            if (!contains(ranges, hash)) {
+                fail(String.format("%s (%f, %f) is %.3f km from (%f, %f) but outside the %.1f km covering",
+                        hash, point.getLatitude(), point.getLongitude(), distanceKm,
+                        center.getLatitude(), center.getLongitude(), radiusKm));
+            }
+        }
+    }
+
+    private static boolean contains(List<String[]> ranges, String hash) {
+        for (String[] range : ranges) {
+            if (hash.compareTo(range[0]) >= 0 && hash.compareTo(range[1]) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // The point at the distance along the initial bearing from the start, on a sphere.
+    static GeoPoint destination(GeoPoint start, double bearingDegrees, double distanceKm) {
+        double angle = distanceKm / EARTH_RADIUS_KM;
+        double bearing = Math.toRadians(bearingDegrees);
+        double lat1 = Math.toRadians(start.getLatitude());
+        double lng1 = Math.toRadians(start.getLongitude());
+        double lat2 = Math.asin(Math.sin(lat1) * Math.cos(angle)
+                + Math.cos(lat1) * Math.sin(angle) * Math.cos(bearing));
+        double lng2 = lng1 + Math.atan2(Math.sin(bearing) * Math.sin(angle) * Math.cos(lat1),
+                Math.cos(angle) - Math.sin(lat1) * Math.sin(lat2));
+        double lng = (Math.toDegrees(lng2) + 540) % 360 - 180;
+        return new GeoPoint(Math.toDegrees(lat2), lng);
+    }
+}
@@ -0,0 +1,163 @@
+package wjhj.orbital.sportsmatchfindingapp.utils;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RankedListTest {
+    private static final Comparator<Item> BY_SCORE = (a, b) -> a.score != b.score
+            ? Integer.compare(a.score, b.score)
+            : a.key.compareTo(b.key);
+    private static final Comparator<Item> BY_SCORE_DESCENDING = (a, b) -> a.score != b.score
+            ? Integer.compare(b.score, a.score)
+            : a.key.compareTo(b.key);
+
+    private RankedList<Item> list;
+
+    @Before
+    public void setUp() {
+        list = new RankedList<>(item -> item.key, BY_SCORE);
+    }
+
+    @Test
+    public void put_insertsInRankOrder() {
+        assertTrue(list.put(new Item("c", 3)));
+        assertTrue(list.put(new Item("a", 1)));
+        assertTrue(list.put(new Item("d", 2)));
+        assertTrue(list.put(new Item("b", 2)));
+
+        assertEquals(Arrays.asList("a", "b", "d", "c"), keys(list.toList()));
+    }
+
+    @Test
+    public void put_movesChangedItem() {
+        list.put(new Item("a", 1));
+        list.put(new Item("b", 2));
+        list.put(new Item("c", 3));
+
+        assertTrue(list.put(new Item("a", 4)));
+
+        assertEquals(3, list.size());
+        assertEquals(Arrays.asList("b", "c", "a"), keys(list.toList()));
+    }
+
+    @Test
+    public void put_ignoresEqualItem() {
+        list.put(new Item("a", 1));
+
+        assertFalse(list.put(new Item("a", 1)));
+        assertEquals(1, list.size());
+    }
+
+    @Test
+    public void remove_dropsOnlyThatItem() {
+        list.put(new Item("a", 1));
+        list.put(new Item("b", 2));
+        list.put(new Item("c", 2));
+
+        assertTrue(list.remove("b"));
+        assertFalse(list.remove("b"));
+        assertFalse(list.remove("missing"));
+
+        assertEquals(Arrays.asList("a", "c"), keys(list.toList()));
+    }
+
+    @Test
+    public void replaceAll_addsChangesAndRemoves() {
+        list.replaceAll(Arrays.asList(new Item("a", 1), new Item("b", 2), new Item("c", 3)));
+
+        assertTrue(list.replaceAll(Arrays.asList(new Item("c", 0), new Item("b", 2), new Item("d", 5))));
+        assertEquals(Arrays.asList("c", "b", "d"), keys(list.toList()));
+
+        assertFalse(list.replaceAll(Arrays.asList(new Item("d", 5), new Item("b", 2), new Item("c", 0))));
+
+        assertTrue(list.replaceAll(Collections.emptyList()));
+        assertEquals(0, list.size());
+    }
+
+    @Test
+    public void setComparator_reSortsEverything() {
+        list.replaceAll(Arrays.asList(new Item("a", 1), new Item("b", 3), new Item("c", 2)));
+
+        list.setComparator(BY_SCORE_DESCENDING);
+        assertEquals(Arrays.asList("b", "c", "a"), keys(list.toList()));
+
+        // Later changes are placed by the new ranking.
+        list.put(new Item("d", 2));
+        list.put(new Item("a", 4));
+        assertEquals(Arrays.asList("a", "b", "c", "d"), keys(list.toList()));
+    }
+
+    @Test
+    public void randomChanges_matchFullSort() {
+        Random random = new Random(42);
+        Map<String, Item> expected = new HashMap<>();
+        for (int round = 0; round < 500; round++) {
+            String key = "k" + random.nextInt(60);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                Item item = new Item(key, random.nextInt(20));
+                expected.put(key, item);
+                list.put(item);
+            } else if (action < 9) {
+                expected.remove(key);
+                list.remove(key);
+            } else {
+                List<Item> batch = new ArrayList<>();
+                expected.clear();
+                for (int i = random.nextInt(40); i > 0; i--) {
+                    Item item = new Item("k" + random.nextInt(60), random.nextInt(20));
+                    if (!expected.containsKey(item.key)) {
+                        expected.put(item.key, item);
+                        batch.add(item);
+                    }
+                }
+                list.replaceAll(batch);
+            }
+
+            List<Item> sorted = new ArrayList<>(expected.values());
+            Collections.sort(sorted, BY_SCORE);
+            assertEquals(keys(sorted), keys(list.toList()));
+        }
+    }
+
+    private static List<String> keys(List<Item> items) {
+        List<String> keys = new ArrayList<>();
+        for (Item item : items) {
+            keys.add(item.key);
+        }
+        return keys;
+    }
+
+    private static class Item {
+        private final String key;
+        private final int score;
+
+        Item(String key, int score) {
+            this.key = key;
+            this.score = score;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Item && key.equals(((Item) o).key) && score == ((Item) o).score;
+        }
+
+        @Override
+        public int hashCode() {
+            return key.hashCode() * 31 + score;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+// One-off backfill of the nameSubstrings search field of games that are missing it or were
+// indexed with different rules. Mirrors GameNameIndex.substrings; when those rules change, change
+// them here too and bump the version in the migration name so that every game is indexed again.
+//
+// Usage, with credentials for the project:
+//   GOOGLE_APPLICATION_CREDENTIALS=key.json node backfill-game-names.js
+
+const {main} = require('./migration');
+
+const MIGRATION = 'gameNameSubstrings-v1';
+const MIN_GRAM = 4;
+const MAX_GRAM = 6;
+const MAX_INDEXED_LENGTH = 64;
+const MAX_SUBSTRINGS = 200;
+
+// Same as GameNameIndex.normalize.
+function normalize(text) {
+    if (!text) {
+        return '';
+    }
+    return text.normalize('NFD')
+        .replace(/\p{M}+/gu, '')
+        .toLowerCase()
+        .replace(/[^\p{L}\p{N}]+/gu, ' ')
+        .trim();
+}
+
+function substrings(name) {
+    const normalized = normalize(name).substring(0, MAX_INDEXED_LENGTH);
+    const grams = new Set();
+    for (const word of normalized.split(' ')) {
+        for (let start = 0; start + MIN_GRAM <= word.length; start++) {
+            const maxEnd = Math.min(word.length, start + MAX_GRAM);
+            for (let end = start + MIN_GRAM; end <= maxEnd; end++) {
+                if (grams.size === MAX_SUBSTRINGS) {
+                    return [...grams];
+                }
+                grams.add(word.substring(start, end));
+            }
+        }
+    }
+    return [...grams];
+}
+
+function nameSubstrings(game) {
+    const grams = substrings(game.gameName);
+    const current = game.nameSubstrings;
+    if (Array.isArray(current) && current.length === grams.length
+            && current.every((gram, i) => gram === grams[i])) {
+        return null;
+    }
+    return {nameSubstrings: grams};
+}
+
+main(MIGRATION, 'Games', nameSubstrings);
@@ -0,0 +1,59 @@
+// One-off backfill of the numeric time fields of games written before the app stored them.
+// Mirrors GameDataModel: startMillis and endMillis as epoch millis in the games' time zone,
+// minuteOfDay and the timeOfDay bucket. Clients only query on the numeric fields once
+// Migrations/gameTimes is marked done.
+//
+// Usage, with credentials for the project:
+//   GOOGLE_APPLICATION_CREDENTIALS=key.json TZ=Asia/Singapore node backfill-game-times.js
+
+if (!process.env.TZ) {
+    console.error('Set TZ to the time zone the games were created in, e.g. TZ=Asia/Singapore');
+    process.exit(1);
+}
+
+const {main} = require('./migration');
+
+// Same buckets as TimeOfDay.getTimeOfDay.
+function timeOfDay(hour) {
+    if (hour < 6) {
+        return 'NIGHT';
+    } else if (hour < 12) {
+        return 'MORNING';
+    } else if (hour < 19) {
+        return 'AFTERNOON';
+    }
+    return 'NIGHT';
+}
+
+// Accepts the PTnHnMnS strings written by Duration.toString().
+function durationMillis(text) {
+    const match = /^PT(?:(\d+)H)?(?:(\d+)M)?(?:(\d+(?:\.\d+)?)S)?$/.exec(text || '');
+    if (!match || text === 'PT') {
+        throw new Error(`Unreadable duration ${text}`);
+    }
+    const [, hours = 0, minutes = 0, seconds = 0] = match;
+    return ((Number(hours) * 60 + Number(minutes)) * 60 + Number(seconds)) * 1000;
+}
+
+function numericTimes(game) {
+    if (game.timeOfDay || !game.date) {
+        return null;
+    }
+    const date = /^(\d{4})-(\d{2})-(\d{2})$/.exec(game.date);
+    const time = /^(\d{2}):(\d{2})(?::(\d{2}))?$/.exec(game.time || '');
+    if (!date || !time) {
+        throw new Error(`Unreadable date ${game.date} or time ${game.time}`);
+    }
+    const hour = Number(time[1]);
+    const minute = Number(time[2]);
+    const startMillis = new Date(Number(date[1]), Number(date[2]) - 1, Number(date[3]),
+        hour, minute, Number(time[3] || 0)).getTime();
+    return {
+        startMillis,
+        endMillis: startMillis + durationMillis(game.duration),
+        minuteOfDay: hour * 60 + minute,
+        timeOfDay: timeOfDay(hour),
+    };
+}
+
+main('gameTimes', 'Games', numericTimes);
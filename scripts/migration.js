@@ -0,0 +1,75 @@
+// Runs a one-off migration over a collection, a page at a time in document id order. Each page is
+// committed in one batch together with its progress in Migrations/<name>: the id of the last
+// document, whether the run is done and how many documents were updated. An interrupted run
+// resumes after the last committed page, and clients read the done flag to know the data is ready.
+
+const admin = require('firebase-admin');
+
+const MIGRATIONS_PATH = 'Migrations';
+const PAGE_SIZE = 200;
+
+admin.initializeApp();
+const db = admin.firestore();
+
+// update returns the fields to merge into a document, or null to leave it unchanged.
+async function runMigration(name, collectionPath, update) {
+    const progressRef = db.collection(MIGRATIONS_PATH).doc(name);
+    const progress = (await progressRef.get()).data() || {};
+    if (progress.done) {
+        console.log(`${name} is already done`);
+        return;
+    }
+
+    let cursor = progress.cursor || null;
+    let total = 0;
+    for (;;) {
+        let page = db.collection(collectionPath)
+            .orderBy(admin.firestore.FieldPath.documentId())
+            .limit(PAGE_SIZE);
+        if (cursor) {
+            page = page.startAfter(cursor);
+        }
+        const snapshot = await page.get();
+
+        const batch = db.batch();
+        let updated = 0;
+        for (const doc of snapshot.docs) {
+            cursor = doc.id;
+            let fields;
+            try {
+                fields = update(doc.data());
+            } catch (e) {
+                console.warn(`Skipping ${doc.id}: ${e.message}`);
+                continue;
+            }
+            if (fields) {
+                batch.set(doc.ref, fields, {merge: true});
+                updated++;
+            }
+        }
+
+        const done = snapshot.size < PAGE_SIZE;
+        batch.set(progressRef, {
+            cursor,
+            done,
+            updated: admin.firestore.FieldValue.increment(updated),
+        }, {merge: true});
+        await batch.commit();
+
+        total += updated;
+        console.log(`${name} updated ${total} documents up to ${cursor}`);
+        if (done) {
+            return;
+        }
+    }
+}
+
+// Runs the migration as the script's main function, exiting non-zero if it fails.
+function main(name, collectionPath, update) {
+    runMigration(name, collectionPath, update).catch(e => {
+        console.error(e);
+        process.exit(1);
+    });
+}
+
+module.exports = {main};